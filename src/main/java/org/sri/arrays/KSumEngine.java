@@ -0,0 +1,158 @@
+package org.sri.arrays;
+
+import org.sri.arrays.mergesort.ParallelMergeSort;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Parallel 3-sum and 4-sum over large arrays, built on the sort + two-pointer scan of {@link ThreeSum}.
+ * The outer index range is split across a ForkJoinPool; duplicates are still skipped by comparing
+ * with the previous element of the sorted array, which works the same no matter where a range starts.
+ * Sums are long so they can't overflow, and results are either counted or streamed to a primitive
+ * callback instead of being collected as List&lt;List&lt;Integer&gt;&gt;.
+ */
+public class KSumEngine {
+
+    @FunctionalInterface
+    public interface TripletConsumer {
+        void accept(int a, int b, int c);
+    }
+
+    @FunctionalInterface
+    public interface QuadrupletConsumer {
+        void accept(int a, int b, int c, int d);
+    }
+
+    private static final int DEFAULT_GRAIN = 8;
+
+    private final ForkJoinPool pool;
+    private final int grain; // outer indexes per leaf task, small because early indexes do the most work
+
+    public KSumEngine() {
+        this(ForkJoinPool.commonPool(), DEFAULT_GRAIN);
+    }
+
+    public KSumEngine(ForkJoinPool pool, int grain) {
+        if (grain < 1) {
+            throw new IllegalArgumentException("grain must be positive: " + grain);
+        }
+        this.pool = pool;
+        this.grain = grain;
+    }
+
+    // Number of unique value triplets summing to target, the input array is left untouched
+    public long countTriplets(int[] nums, long target) {
+        return run(nums, target, 3, null, null);
+    }
+
+    // Streams every unique triplet in ascending order within the triplet; consumer is called from pool threads
+    public long forEachTriplet(int[] nums, long target, TripletConsumer consumer) {
+        return run(nums, target, 3, consumer, null);
+    }
+
+    public long countQuadruplets(int[] nums, long target) {
+        return run(nums, target, 4, null, null);
+    }
+
+    public long forEachQuadruplet(int[] nums, long target, QuadrupletConsumer consumer) {
+        return run(nums, target, 4, null, consumer);
+    }
+
+    private long run(int[] nums, long target, int k, TripletConsumer triplets, QuadrupletConsumer quadruplets) {
+        int[] sorted = nums.clone();
+        new ParallelMergeSort().sort(sorted);
+        return pool.invoke(new OuterTask(sorted, target, k, triplets, quadruplets, 0, sorted.length));
+    }
+
+    private class OuterTask extends RecursiveTask<Long> {
+        private final int[] sorted;
+        private final long target;
+        private final int k;
+        private final TripletConsumer triplets;
+        private final QuadrupletConsumer quadruplets;
+        private final int from;
+        private final int to;
+
+        OuterTask(int[] sorted, long target, int k, TripletConsumer triplets, QuadrupletConsumer quadruplets,
+                  int from, int to) {
+            this.sorted = sorted;
+            this.target = target;
+            this.k = k;
+            this.triplets = triplets;
+            this.quadruplets = quadruplets;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from <= grain) {
+                long count = 0;
+                for (int i = from; i < to; i++) {
+                    if (i > 0 && sorted[i] == sorted[i - 1]) continue; // Skip duplicate outer values
+                    if (k == 3) {
+                        count += pairs(sorted, i + 1, target - sorted[i], sorted[i], 0, false);
+                    } else {
+                        for (int j = i + 1; j < sorted.length; j++) {
+                            if (j > i + 1 && sorted[j] == sorted[j - 1]) continue;
+                            count += pairs(sorted, j + 1, target - sorted[i] - sorted[j], sorted[i], sorted[j], true);
+                        }
+                    }
+                }
+                return count;
+            }
+            int mid = (from + to) >>> 1;
+            OuterTask left = new OuterTask(sorted, target, k, triplets, quadruplets, from, mid);
+            left.fork();
+            long right = new OuterTask(sorted, target, k, triplets, quadruplets, mid, to).compute();
+            return left.join() + right;
+        }
+
+        // Two-pointer scan over sorted[start..] for pairs summing to remaining, reporting them with the fixed prefix
+        private long pairs(int[] sorted, int start, long remaining, int first, int second, boolean quad) {
+            long count = 0;
+            int left = start;
+            int right = sorted.length - 1;
+            while (left < right) {
+                long sum = (long) sorted[left] + sorted[right];
+                if (sum == remaining) {
+                    count++;
+                    if (quad && quadruplets != null) {
+                        quadruplets.accept(first, second, sorted[left], sorted[right]);
+                    } else if (!quad && triplets != null) {
+                        triplets.accept(first, sorted[left], sorted[right]);
+                    }
+                    while (left < right && sorted[left] == sorted[left + 1]) left++; // Skip duplicate `left`
+                    while (left < right && sorted[right] == sorted[right - 1]) right--; // Skip duplicate `right`
+                    left++;
+                    right--;
+                } else if (sum < remaining) {
+                    left++;
+                } else {
+                    right--;
+                }
+            }
+            return count;
+        }
+    }
+
+    public static void main(String[] args) {
+        KSumEngine engine = new KSumEngine();
+        int[] nums = new int[]{-4, -1, -1, 0, 1, 2};
+        engine.forEachTriplet(nums, 0, (a, b, c) -> System.out.println(a + " " + b + " " + c)); // -1 -1 2, -1 0 1
+        System.out.println(engine.countQuadruplets(new int[]{1, 0, -1, 0, -2, 2}, 0)); // 3
+
+        int[] big = new int[20_000];
+        Random random = new Random(12);
+        for (int i = 0; i < big.length; i++) {
+            big[i] = random.nextInt(200_001) - 100_000;
+        }
+        AtomicLong checksum = new AtomicLong();
+        long start = System.nanoTime();
+        long count = engine.forEachTriplet(big, 0, (a, b, c) -> checksum.addAndGet(a - c));
+        System.out.println(count + " triplets in " + (System.nanoTime() - start) / 1_000_000 + " ms, checksum " + checksum);
+    }
+}
@@ -12,7 +12,7 @@ public class ThreeSum {
         System.out.println(list.get(0));
     }
 
-    private static List<List<Integer>> threeSum(int[] nums, int target) {
+    static List<List<Integer>> threeSum(int[] nums, int target) {
 
         Arrays.sort(nums);
 
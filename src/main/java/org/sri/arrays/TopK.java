@@ -0,0 +1,211 @@
+package org.sri.arrays;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * {@link SecondLargest} generalised to any k. An instance tracks the k largest values of a
+ * stream in a primitive min-heap: the root is the current k-th largest, so a new value only
+ * costs O(log k) when it beats the root. Static helpers cover in-memory arrays with
+ * quickselect and a parallel per-chunk top-k that merges the chunk heaps.
+ * Duplicates count separately, so the 2nd largest of {8, 8, 7} is 8, not 7 as in SecondLargest.
+ */
+public class TopK {
+
+    private final int k;
+    private final int[] heap;
+    private int size;
+
+    public TopK(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be positive: " + k);
+        }
+        this.k = k;
+        this.heap = new int[k];
+    }
+
+    public void offer(int value) {
+        if (size < k) {
+            heap[size] = value;
+            siftUp(size++);
+        } else if (value > heap[0]) {
+            heap[0] = value;
+            siftDown(0);
+        }
+    }
+
+    public void offerAll(int[] values, int from, int to) {
+        for (int i = from; i < to; i++) {
+            offer(values[i]);
+        }
+    }
+
+    public void merge(TopK other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.heap[i]);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // The k-th largest value seen so far, once at least k values were offered
+    public int kthLargest() {
+        if (size < k) {
+            throw new IllegalStateException("Only " + size + " of " + k + " values seen");
+        }
+        return heap[0];
+    }
+
+    // Largest first
+    public int[] toSortedArray() {
+        int[] result = Arrays.copyOf(heap, size);
+        return sortDescending(result);
+    }
+
+    private void siftUp(int i) {
+        int value = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= value) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = value;
+    }
+
+    private void siftDown(int i) {
+        int value = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (value <= heap[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = value;
+    }
+
+    // Quickselect on a copy, expected O(n)
+    public static int kthLargest(int[] arr, int k) {
+        if (k < 1 || k > arr.length) {
+            throw new IllegalArgumentException("k must be between 1 and " + arr.length + ": " + k);
+        }
+        int[] copy = arr.clone();
+        return copy[select(copy, copy.length - k)];
+    }
+
+    // The k largest values, largest first, using quickselect to partition a copy
+    public static int[] topK(int[] arr, int k) {
+        k = Math.min(k, arr.length);
+        if (k <= 0) {
+            return new int[0];
+        }
+        int[] copy = arr.clone();
+        select(copy, copy.length - k);
+        int[] result = Arrays.copyOfRange(copy, copy.length - k, copy.length);
+        return sortDescending(result);
+    }
+
+    // Rearranges arr so index n holds the value it would have if sorted, returns n
+    private static int select(int[] arr, int n) {
+        Random random = new Random(arr.length);
+        int lo = 0;
+        int hi = arr.length - 1;
+        while (lo < hi) {
+            int pivot = arr[lo + random.nextInt(hi - lo + 1)];
+            // three-way partition: [lo, lt) < pivot, [lt, gt] == pivot, (gt, hi] > pivot
+            int lt = lo;
+            int gt = hi;
+            int i = lo;
+            while (i <= gt) {
+                if (arr[i] < pivot) {
+                    swap(arr, lt++, i++);
+                } else if (arr[i] > pivot) {
+                    swap(arr, i, gt--);
+                } else {
+                    i++;
+                }
+            }
+            if (n < lt) {
+                hi = lt - 1;
+            } else if (n > gt) {
+                lo = gt + 1;
+            } else {
+                return n;
+            }
+        }
+        return n;
+    }
+
+    private static int[] sortDescending(int[] values) {
+        Arrays.sort(values);
+        for (int i = 0, j = values.length - 1; i < j; i++, j--) {
+            swap(values, i, j);
+        }
+        return values;
+    }
+
+    private static void swap(int[] arr, int i, int j) {
+        int tmp = arr[i];
+        arr[i] = arr[j];
+        arr[j] = tmp;
+    }
+
+    // Per-chunk heaps on the pool, merged pairwise on the way back up
+    public static TopK parallelTopK(int[] arr, int k, ForkJoinPool pool) {
+        return pool.invoke(new ChunkTask(arr, k, 0, arr.length));
+    }
+
+    private static class ChunkTask extends RecursiveTask<TopK> {
+        private static final int CHUNK = 1 << 16;
+
+        private final int[] arr;
+        private final int k;
+        private final int from;
+        private final int to;
+
+        ChunkTask(int[] arr, int k, int from, int to) {
+            this.arr = arr;
+            this.k = k;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected TopK compute() {
+            if (to - from <= Math.max(CHUNK, 4 * k)) {
+                TopK top = new TopK(k);
+                top.offerAll(arr, from, to);
+                return top;
+            }
+            int mid = (from + to) >>> 1;
+            ChunkTask left = new ChunkTask(arr, k, from, mid);
+            left.fork();
+            TopK right = new ChunkTask(arr, k, mid, to).compute();
+            right.merge(left.join());
+            return right;
+        }
+    }
+
+    public static void main(String[] args) {
+        int[] nums = new int[]{1, 8, 4, 3, 7, 5};
+        System.out.println(kthLargest(nums, 2)); // 7, same as SecondLargest
+        System.out.println(Arrays.toString(topK(nums, 3))); // [8, 7, 5]
+        TopK stream = new TopK(2);
+        stream.offerAll(nums, 0, nums.length);
+        System.out.println(Arrays.toString(stream.toSortedArray())); // [8, 7]
+    }
+}
@@ -0,0 +1,48 @@
+package org.sri.arrays;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+// TopK heap, quickselect and parallel modes vs sorting, run with: java -Xmx4g org.sri.arrays.TopKBenchmark [size] [k]
+public class TopKBenchmark {
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 20_000_000;
+        int k = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        Random random = new Random(13);
+        int[] values = new int[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = random.nextInt();
+        }
+
+        for (int round = 0; round < 3; round++) {
+            System.out.println("round " + round + ", " + size + " values, k=" + k);
+
+            long start = System.nanoTime();
+            int[] sorted = values.clone();
+            Arrays.sort(sorted);
+            report("Arrays.sort", start, sorted[size - k]);
+
+            start = System.nanoTime();
+            sorted = values.clone();
+            Arrays.parallelSort(sorted);
+            report("Arrays.parallelSort", start, sorted[size - k]);
+
+            start = System.nanoTime();
+            TopK heap = new TopK(k);
+            heap.offerAll(values, 0, size);
+            report("heap", start, heap.kthLargest());
+
+            start = System.nanoTime();
+            report("quickselect", start, TopK.kthLargest(values, k));
+
+            start = System.nanoTime();
+            report("parallel heaps", start, TopK.parallelTopK(values, k, ForkJoinPool.commonPool()).kthLargest());
+        }
+    }
+
+    private static void report(String name, long startNanos, int kth) {
+        System.out.printf("  %-20s %6d ms  (k-th largest %d)%n", name, (System.nanoTime() - startNanos) / 1_000_000, kth);
+    }
+}
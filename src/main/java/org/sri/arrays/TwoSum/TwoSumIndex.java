@@ -0,0 +1,166 @@
+package org.sri.arrays.TwoSum;
+
+import org.sri.arrays.mergesort.ParallelMergeSort;
+import org.sri.collections.IntIntHashMap;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Index over a dataset for answering many pair-sum queries.
+ * The data is sorted once with each value's original position kept alongside it, and
+ * collapsed into its distinct values plus a value hash. Every query then shares that work:
+ * it binary-searches the smallest value that can still pair up and probes the hash for
+ * partners only until the values pass target / 2, instead of running its own full
+ * two-pointer scan like {@link TwoSumSorted}. Sums are long, so they never overflow.
+ * Batches write their answers into a caller supplied int[] and can be spread over a
+ * ForkJoinPool; the index is read-only so queries are thread-safe.
+ */
+public class TwoSumIndex {
+
+    private static final int TARGETS_PER_TASK = 64;
+
+    private final int size;
+    private final int[] values;        // distinct values, ascending
+    private final int[] firstPosition; // smallest original index holding values[d]
+    private final int[] lastPosition;  // largest original index holding values[d]
+    private final IntIntHashMap indexByValue;      // value -> d
+
+    public TwoSumIndex(int[] nums) {
+        // value in the high half, original index in the low half: one primitive sort keeps them together
+        long[] packed = new long[nums.length];
+        for (int i = 0; i < nums.length; i++) {
+            packed[i] = ((long) nums[i] << 32) | i;
+        }
+        new ParallelMergeSort().sort(packed);
+        indexByValue = new IntIntHashMap(nums.length);
+        int[] distinct = new int[nums.length];
+        int[] first = new int[nums.length];
+        int[] last = new int[nums.length];
+        int count = 0;
+        for (int i = 0; i < packed.length; i++) {
+            int value = (int) (packed[i] >> 32);
+            int position = (int) packed[i];
+            if (count == 0 || distinct[count - 1] != value) {
+                distinct[count] = value;
+                first[count] = position;
+                indexByValue.put(value, count);
+                count++;
+            }
+            last[count - 1] = position;
+        }
+        size = nums.length;
+        values = Arrays.copyOf(distinct, count);
+        firstPosition = Arrays.copyOf(first, count);
+        lastPosition = Arrays.copyOf(last, count);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Original positions {i, j} with i < j and nums[i] + nums[j] == target, or an empty array
+    public int[] query(long target) {
+        int[] out = new int[2];
+        return find(target, out, 0) ? out : new int[]{};
+    }
+
+    // out[2t] and out[2t + 1] receive the pair for targets[t], or -1 and -1 when there is none
+    public void query(long[] targets, int[] out) {
+        checkOutput(targets, out);
+        queryRange(targets, out, 0, targets.length);
+    }
+
+    public void queryParallel(long[] targets, int[] out, ForkJoinPool pool) {
+        checkOutput(targets, out);
+        pool.invoke(new QueryTask(targets, out, 0, targets.length));
+    }
+
+    private static void checkOutput(long[] targets, int[] out) {
+        if (out.length < 2L * targets.length) {
+            throw new IllegalArgumentException("Output needs " + 2L * targets.length + " slots but has " + out.length);
+        }
+    }
+
+    private void queryRange(long[] targets, int[] out, int from, int to) {
+        for (int t = from; t < to; t++) {
+            if (!find(targets[t], out, 2 * t)) {
+                out[2 * t] = -1;
+                out[2 * t + 1] = -1;
+            }
+        }
+    }
+
+    // Same pair the two-pointer scan finds: the smallest value with a partner, paired with that partner
+    private boolean find(long target, int[] out, int offset) {
+        if (values.length == 0) {
+            return false;
+        }
+        // anything below target - max has no partner large enough
+        for (int d = firstAtLeast(target - values[values.length - 1]); d < values.length; d++) {
+            long value = values[d];
+            long partner = target - value;
+            if (partner < value) {
+                break; // pairs past target / 2 were already seen from the other side
+            }
+            int p = indexByValue.getOrDefault((int) partner, -1); // partner <= max, so it fits in an int
+            if (p < 0 || (p == d && firstPosition[d] == lastPosition[d])) {
+                continue; // no partner, or value + value with a single occurrence
+            }
+            out[offset] = Math.min(firstPosition[d], lastPosition[p]);
+            out[offset + 1] = Math.max(firstPosition[d], lastPosition[p]);
+            return true;
+        }
+        return false;
+    }
+
+    // first d with values[d] >= key
+    private int firstAtLeast(long key) {
+        int lo = 0;
+        int hi = values.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private class QueryTask extends RecursiveAction {
+        private final long[] targets;
+        private final int[] out;
+        private final int from;
+        private final int to;
+
+        QueryTask(long[] targets, int[] out, int from, int to) {
+            this.targets = targets;
+            this.out = out;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= TARGETS_PER_TASK) {
+                queryRange(targets, out, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new QueryTask(targets, out, from, mid), new QueryTask(targets, out, mid, to));
+        }
+    }
+
+    public static void main(String[] args) {
+        TwoSumIndex index = new TwoSumIndex(new int[]{9, 1, 7, 3, 5});
+        System.out.println(Arrays.toString(index.query(8))); // [1, 2] as 1+7 is 8
+
+        long[] targets = {8, 16, 100, 6};
+        int[] out = new int[targets.length * 2];
+        index.queryParallel(targets, out, ForkJoinPool.commonPool());
+        System.out.println(Arrays.toString(out)); // [1, 2, 0, 2, -1, -1, 1, 4]
+    }
+}
@@ -1,7 +1,8 @@
 package org.sri.arrays.TwoSum;
 
+import org.sri.collections.IntIntHashMap;
+
 import java.util.Arrays;
-import java.util.HashMap;
 
 public class TwoSumUnsorted {
 
@@ -12,19 +13,20 @@ public class TwoSumUnsorted {
 
     }
 
-    private static int[] twoSumUnsorted(int[] nums, int target) {
-        HashMap<Integer,Integer> hashMap = new HashMap<>();
+    public static int[] twoSumUnsorted(int[] nums, int target) {
+        // value -> index without boxing, one probe per lookup instead of containsKey + get
+        IntIntHashMap indexByValue = new IntIntHashMap(nums.length);
 
         for (int i=0;i<nums.length;i++){
             int compliment = target - nums[i];
 
-            if(hashMap.containsKey(compliment)){
-                return new int[]{hashMap.get(compliment),i};
+            int j = indexByValue.getOrDefault(compliment, -1);
+            if(j >= 0){
+                return new int[]{j,i};
             }
-            hashMap.put(nums[i],i);
+            indexByValue.put(nums[i],i);
         }
 
         return new int[]{};
     }
 }
-
@@ -0,0 +1,50 @@
+package org.sri.arrays.maximumwater;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+// Sizes from 1K up to maxSize (1B needs about -Xmx6g), run with: java org.sri.arrays.maximumwater.MaxWaterBenchmark [maxSize]
+public class MaxWaterBenchmark {
+
+    public static void main(String[] args) {
+        long maxSize = args.length > 0 ? Long.parseLong(args[0]) : 100_000_000L;
+        Random random = new Random(14);
+
+        for (long size = 1_000; size <= maxSize; size *= 10) {
+            int n = (int) Math.min(size, Integer.MAX_VALUE - 8);
+            int[] height = new int[n];
+            for (int i = 0; i < n; i++) {
+                height[i] = random.nextInt(Integer.MAX_VALUE); // tall lines: int areas overflow
+            }
+            // repeat small sizes so timings are above the timer's resolution
+            int repeats = (int) Math.max(1, 10_000_000 / size);
+            System.out.println(n + " heights");
+            for (int round = 0; round < 3; round++) {
+                long start = System.nanoTime();
+                long check = 0;
+                for (int r = 0; r < repeats; r++) {
+                    check += MaxWaterContainer.maxArea(height);
+                }
+                report("int two-pointer", start, repeats, check / repeats);
+
+                start = System.nanoTime();
+                check = 0;
+                for (int r = 0; r < repeats; r++) {
+                    check += MaxWaterContainer.maxAreaLong(height);
+                }
+                report("long skipping", start, repeats, check / repeats);
+
+                start = System.nanoTime();
+                check = 0;
+                for (int r = 0; r < repeats; r++) {
+                    check += MaxWaterContainer.maxAreaParallel(height, ForkJoinPool.commonPool());
+                }
+                report("parallel candidates", start, repeats, check / repeats);
+            }
+        }
+    }
+
+    private static void report(String name, long startNanos, int repeats, long area) {
+        System.out.printf("  %-20s %12.1f us  (area %d)%n", name, (System.nanoTime() - startNanos) / 1000.0 / repeats, area);
+    }
+}
@@ -1,14 +1,18 @@
 package org.sri.arrays.maximumwater;
 
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 public class MaxWaterContainer {
     public static int maxArea(int[] height) {
-        int left = 0, right = height.length - 1;
-        int maxArea = 0;
-
         if (height == null || height.length < 2) {
             return 0;
         }
 
+        int left = 0, right = height.length - 1;
+        int maxArea = 0;
+
         while (left < right) {
             // Calculate area
             int area = Math.min(height[left], height[right]) * (right - left);
@@ -25,8 +29,202 @@ public class MaxWaterContainer {
         return maxArea;
     }
 
+    // Same two-pointer scan with long area, and both pointers skip every line no taller than the
+    // current water level since none of those can hold more water. The inner loops are simple compares.
+    public static long maxAreaLong(int[] height) {
+        if (height == null || height.length < 2) {
+            return 0;
+        }
+        int left = 0, right = height.length - 1;
+        long maxArea = 0;
+
+        while (left < right) {
+            int level = Math.min(height[left], height[right]);
+            maxArea = Math.max(maxArea, (long) level * (right - left));
+            while (left < right && height[left] <= level) {
+                left++;
+            }
+            while (left < right && height[right] <= level) {
+                right--;
+            }
+        }
+        return maxArea;
+    }
+
+    // The best container always uses a line taller than everything to its left and one taller than
+    // everything to its right. Those candidate lines are collected per chunk in parallel, then the
+    // two-pointer scan only runs over the candidates.
+    public static long maxAreaParallel(int[] height, ForkJoinPool pool) {
+        if (height == null || height.length < 2) {
+            return 0;
+        }
+        int n = height.length;
+        int chunkSize = Math.max(1 << 16, n / (pool.getParallelism() * 4));
+        int chunks = (n + chunkSize - 1) / chunkSize;
+
+        int[] chunkMax = new int[chunks];
+        pool.invoke(new ChunkTask(height, chunkSize, 0, chunks, chunkMax, null, null, null, null));
+
+        // tallest line before / after each chunk
+        int[] maxBefore = new int[chunks];
+        int[] maxAfter = new int[chunks];
+        maxBefore[0] = Integer.MIN_VALUE;
+        for (int c = 1; c < chunks; c++) {
+            maxBefore[c] = Math.max(maxBefore[c - 1], chunkMax[c - 1]);
+        }
+        maxAfter[chunks - 1] = Integer.MIN_VALUE;
+        for (int c = chunks - 2; c >= 0; c--) {
+            maxAfter[c] = Math.max(maxAfter[c + 1], chunkMax[c + 1]);
+        }
+
+        int[][] leftCandidates = new int[chunks][];
+        int[][] rightCandidates = new int[chunks][];
+        pool.invoke(new ChunkTask(height, chunkSize, 0, chunks, null, maxBefore, maxAfter, leftCandidates, rightCandidates));
+
+        int[] lefts = concat(leftCandidates, false);
+        int[] rights = concat(rightCandidates, true);
+
+        long maxArea = 0;
+        int a = 0;
+        int b = 0;
+        while (a < lefts.length && b < rights.length && lefts[a] < rights[b]) {
+            int left = lefts[a];
+            int right = rights[b];
+            maxArea = Math.max(maxArea, (long) Math.min(height[left], height[right]) * (right - left));
+            if (height[left] < height[right]) {
+                a++;
+            } else {
+                b++;
+            }
+        }
+        return maxArea;
+    }
+
+    private static int[] concat(int[][] parts, boolean reverseOrder) {
+        int total = 0;
+        for (int[] part : parts) {
+            total += part.length;
+        }
+        int[] result = new int[total];
+        int offset = 0;
+        for (int i = 0; i < parts.length; i++) {
+            int[] part = parts[reverseOrder ? parts.length - 1 - i : i];
+            System.arraycopy(part, 0, result, offset, part.length);
+            offset += part.length;
+        }
+        return result;
+    }
+
+    // First pass fills chunkMax, second pass collects each chunk's left and right candidate lines
+    private static class ChunkTask extends RecursiveAction {
+        private final int[] height;
+        private final int chunkSize;
+        private final int from;
+        private final int to;
+        private final int[] chunkMax;
+        private final int[] maxBefore;
+        private final int[] maxAfter;
+        private final int[][] leftCandidates;
+        private final int[][] rightCandidates;
+
+        ChunkTask(int[] height, int chunkSize, int from, int to, int[] chunkMax, int[] maxBefore, int[] maxAfter,
+                  int[][] leftCandidates, int[][] rightCandidates) {
+            this.height = height;
+            this.chunkSize = chunkSize;
+            this.from = from;
+            this.to = to;
+            this.chunkMax = chunkMax;
+            this.maxBefore = maxBefore;
+            this.maxAfter = maxAfter;
+            this.leftCandidates = leftCandidates;
+            this.rightCandidates = rightCandidates;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ChunkTask(height, chunkSize, from, mid, chunkMax, maxBefore, maxAfter, leftCandidates, rightCandidates),
+                        new ChunkTask(height, chunkSize, mid, to, chunkMax, maxBefore, maxAfter, leftCandidates, rightCandidates));
+                return;
+            }
+            int c = from;
+            int start = c * chunkSize;
+            int end = Math.min(height.length, start + chunkSize);
+            if (chunkMax != null) {
+                int max = Integer.MIN_VALUE;
+                for (int i = start; i < end; i++) {
+                    max = Math.max(max, height[i]);
+                }
+                chunkMax[c] = max;
+                return;
+            }
+            int[] found = new int[16];
+            int count = 0;
+            int running = maxBefore[c];
+            for (int i = start; i < end; i++) {
+                if (height[i] > running) {
+                    running = height[i];
+                    if (count == found.length) {
+                        found = Arrays.copyOf(found, count * 2);
+                    }
+                    found[count++] = i;
+                }
+            }
+            leftCandidates[c] = Arrays.copyOf(found, count);
+
+            count = 0;
+            running = maxAfter[c];
+            for (int i = end - 1; i >= start; i--) {
+                if (height[i] > running) {
+                    running = height[i];
+                    if (count == found.length) {
+                        found = Arrays.copyOf(found, count * 2);
+                    }
+                    found[count++] = i;
+                }
+            }
+            rightCandidates[c] = Arrays.copyOf(found, count);
+        }
+    }
+
+    // Many independent height arrays evaluated concurrently, results[i] belongs to heights[i]
+    public static long[] maxAreas(int[][] heights, ForkJoinPool pool) {
+        long[] results = new long[heights.length];
+        pool.invoke(new BatchTask(heights, results, 0, heights.length));
+        return results;
+    }
+
+    private static class BatchTask extends RecursiveAction {
+        private final int[][] heights;
+        private final long[] results;
+        private final int from;
+        private final int to;
+
+        BatchTask(int[][] heights, long[] results, int from, int to) {
+            this.heights = heights;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (to - from == 1) {
+                    results[from] = maxAreaLong(heights[from]);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new BatchTask(heights, results, from, mid), new BatchTask(heights, results, mid, to));
+        }
+    }
+
     public static void main(String[] args) {
         int[] heights = {1, 8, 6, 2, 5, 4, 8, 3, 7};
         System.out.println("Max Water: " + maxArea(heights));
+        System.out.println("Max Water (long): " + maxAreaLong(heights));
+        System.out.println("Max Water (parallel): " + maxAreaParallel(heights, ForkJoinPool.commonPool()));
     }
 }
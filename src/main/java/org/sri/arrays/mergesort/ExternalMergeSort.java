@@ -0,0 +1,414 @@
+package org.sri.arrays.mergesort;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Sorts binary files of ints or longs that are bigger than the heap.
+ * Phase one memory-maps fixed-size runs of the input, sorts each run with
+ * {@link ParallelMergeSort} and spills it to a temp file. Phase two is the k-way
+ * version of {@link MergeSort#merge}: a min-heap of run readers merged with
+ * buffered channel reads and writes, in several passes when there are more runs than the fan-in.
+ */
+public class ExternalMergeSort {
+
+    public enum ElementType {
+        INT(4), LONG(8);
+
+        final int bytes;
+
+        ElementType(int bytes) {
+            this.bytes = bytes;
+        }
+    }
+
+    public static class Options {
+        // a run is mapped with one MappedByteBuffer, so a run of longs has to fit in 2 GB
+        static final int MAX_RUN_SIZE = Integer.MAX_VALUE / ElementType.LONG.bytes;
+
+        private int runSize = 8 * 1024 * 1024; // elements per run
+        private int fanIn = 64;
+        private Path tempDirectory = Paths.get(System.getProperty("java.io.tmpdir"));
+        private int bufferSize = 1 << 20;
+        private ByteOrder byteOrder = ByteOrder.BIG_ENDIAN;
+
+        public Options runSize(int elements) {
+            if (elements < 1 || elements > MAX_RUN_SIZE) {
+                throw new IllegalArgumentException("runSize must be between 1 and " + MAX_RUN_SIZE + ": " + elements);
+            }
+            this.runSize = elements;
+            return this;
+        }
+
+        public Options fanIn(int fanIn) {
+            if (fanIn < 2) {
+                throw new IllegalArgumentException("fanIn must be at least 2: " + fanIn);
+            }
+            this.fanIn = fanIn;
+            return this;
+        }
+
+        public Options tempDirectory(Path tempDirectory) {
+            this.tempDirectory = tempDirectory;
+            return this;
+        }
+
+        // Total read buffer shared by the runs of one merge, plus one write buffer of the same size
+        public Options bufferSize(int bytes) {
+            if (bytes < 64) {
+                throw new IllegalArgumentException("bufferSize too small: " + bytes);
+            }
+            this.bufferSize = bytes;
+            return this;
+        }
+
+        public Options byteOrder(ByteOrder byteOrder) {
+            this.byteOrder = byteOrder;
+            return this;
+        }
+    }
+
+    public static class Stats {
+        private long bytesRead;
+        private long bytesWritten;
+        private int runs;
+        private int mergePasses;
+        private long runPhaseNanos;
+        private long mergePhaseNanos;
+
+        public long getBytesRead() {
+            return bytesRead;
+        }
+
+        public long getBytesWritten() {
+            return bytesWritten;
+        }
+
+        public int getRuns() {
+            return runs;
+        }
+
+        public int getMergePasses() {
+            return mergePasses;
+        }
+
+        public long getRunPhaseNanos() {
+            return runPhaseNanos;
+        }
+
+        public long getMergePhaseNanos() {
+            return mergePhaseNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "runs=" + runs + ", mergePasses=" + mergePasses + ", bytesRead=" + bytesRead
+                    + ", bytesWritten=" + bytesWritten + ", runPhase=" + runPhaseNanos / 1_000_000 + "ms"
+                    + ", mergePhase=" + mergePhaseNanos / 1_000_000 + "ms";
+        }
+    }
+
+    private final Options options;
+    private final ParallelMergeSort runSorter = new ParallelMergeSort();
+
+    public ExternalMergeSort(Options options) {
+        this.options = options;
+    }
+
+    public Stats sort(Path input, Path output, ElementType type) throws IOException {
+        Stats stats = new Stats();
+        List<Path> runs = new ArrayList<>();
+        List<Path> merged = new ArrayList<>(); // runs written so far by the current intermediate pass
+        try {
+            long start = System.nanoTime();
+            createRuns(input, type, runs, stats);
+            stats.runPhaseNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            while (runs.size() > options.fanIn) {
+                // intermediate pass: merge groups of fanIn runs into longer runs
+                merged = new ArrayList<>();
+                for (int i = 0; i < runs.size(); i += options.fanIn) {
+                    List<Path> group = runs.subList(i, Math.min(i + options.fanIn, runs.size()));
+                    Path run = Files.createTempFile(options.tempDirectory, "merge-run", ".bin");
+                    merged.add(run);
+                    mergeRuns(group, run, type, stats);
+                    deleteAll(group);
+                }
+                runs = merged;
+                stats.mergePasses++;
+            }
+            mergeRuns(runs, output, type, stats);
+            stats.mergePasses++;
+            stats.mergePhaseNanos = System.nanoTime() - start;
+        } finally {
+            deleteAll(runs);
+            deleteAll(merged);
+        }
+        return stats;
+    }
+
+    // INT runs are read into an int[] and sorted as ints, a long[] would double the run's memory
+    private void createRuns(Path input, ElementType type, List<Path> runs, Stats stats) throws IOException {
+        long runBytes = (long) options.runSize * type.bytes;
+        int[] ints = null;
+        long[] longs = null;
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ)) {
+            long size = in.size();
+            if (size % type.bytes != 0) {
+                throw new IOException(input + " is not a whole number of " + type + " values (" + size + " bytes)");
+            }
+            for (long offset = 0; offset < size; offset += runBytes) {
+                long length = Math.min(runBytes, size - offset);
+                int count = (int) (length / type.bytes);
+                MappedByteBuffer region = in.map(FileChannel.MapMode.READ_ONLY, offset, length);
+                region.order(options.byteOrder);
+                if (type == ElementType.INT) {
+                    if (ints == null || ints.length != count) {
+                        ints = new int[count];
+                    }
+                    region.asIntBuffer().get(ints);
+                    runSorter.sort(ints);
+                } else {
+                    if (longs == null || longs.length != count) {
+                        longs = new long[count];
+                    }
+                    region.asLongBuffer().get(longs);
+                    runSorter.sort(longs);
+                }
+                stats.bytesRead += length;
+
+                Path run = Files.createTempFile(options.tempDirectory, "sort-run", ".bin");
+                runs.add(run);
+                try (RunWriter writer = new RunWriter(run, type, stats)) {
+                    for (int i = 0; i < count; i++) {
+                        writer.write(type == ElementType.INT ? ints[i] : longs[i]);
+                    }
+                }
+                stats.runs++;
+            }
+        }
+    }
+
+    // Package-private so tests can make a merge fail part way through a pass
+    void mergeRuns(List<Path> runs, Path output, ElementType type, Stats stats) throws IOException {
+        int readBufferSize = Math.max(type.bytes * 16, options.bufferSize / Math.max(1, runs.size()));
+        readBufferSize -= readBufferSize % type.bytes;
+        List<RunReader> readers = new ArrayList<>();
+        try (RunWriter writer = new RunWriter(output, type, stats)) {
+            // heap of reader indices ordered by each reader's current value
+            int[] heap = new int[runs.size()];
+            long[] heads = new long[runs.size()];
+            int heapSize = 0;
+            for (Path run : runs) {
+                RunReader reader = new RunReader(run, type, readBufferSize, stats);
+                readers.add(reader);
+                int index = readers.size() - 1;
+                if (reader.hasNext()) {
+                    heads[index] = reader.next();
+                    heap[heapSize] = index;
+                    siftUp(heap, heads, heapSize++);
+                }
+            }
+            while (heapSize > 0) {
+                int smallest = heap[0];
+                writer.write(heads[smallest]);
+                RunReader reader = readers.get(smallest);
+                if (reader.hasNext()) {
+                    heads[smallest] = reader.next();
+                } else {
+                    heap[0] = heap[--heapSize];
+                }
+                siftDown(heap, heads, heapSize);
+            }
+        } finally {
+            for (RunReader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+    private static void siftUp(int[] heap, long[] heads, int i) {
+        int item = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heads[heap[parent]] <= heads[item]) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = item;
+    }
+
+    private static void siftDown(int[] heap, long[] heads, int size) {
+        if (size == 0) {
+            return;
+        }
+        int item = heap[0];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heads[heap[child + 1]] < heads[heap[child]]) {
+                child++;
+            }
+            if (heads[item] <= heads[heap[child]]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = item;
+    }
+
+    private static void deleteAll(List<Path> files) throws IOException {
+        for (Path file : files) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private class RunReader implements AutoCloseable {
+        private final FileChannel channel;
+        private final ElementType type;
+        private final ByteBuffer buffer;
+        private final Stats stats;
+        private boolean eof;
+
+        RunReader(Path run, ElementType type, int bufferSize, Stats stats) throws IOException {
+            this.channel = FileChannel.open(run, StandardOpenOption.READ);
+            this.type = type;
+            this.buffer = ByteBuffer.allocateDirect(bufferSize).order(options.byteOrder);
+            this.buffer.flip(); // start empty
+            this.stats = stats;
+        }
+
+        boolean hasNext() throws IOException {
+            if (buffer.remaining() >= type.bytes) {
+                return true;
+            }
+            if (eof) {
+                return false;
+            }
+            buffer.compact();
+            while (buffer.position() < type.bytes) {
+                int read = channel.read(buffer);
+                if (read < 0) {
+                    eof = true;
+                    break;
+                }
+                stats.bytesRead += read;
+            }
+            buffer.flip();
+            return buffer.remaining() >= type.bytes;
+        }
+
+        long next() {
+            return type == ElementType.INT ? buffer.getInt() : buffer.getLong();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    private class RunWriter implements AutoCloseable {
+        private final FileChannel channel;
+        private final ElementType type;
+        private final ByteBuffer buffer;
+        private final Stats stats;
+
+        RunWriter(Path file, ElementType type, Stats stats) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.type = type;
+            this.buffer = ByteBuffer.allocateDirect(options.bufferSize - options.bufferSize % type.bytes)
+                    .order(options.byteOrder);
+            this.stats = stats;
+        }
+
+        void write(long value) throws IOException {
+            if (buffer.remaining() < type.bytes) {
+                flush();
+            }
+            if (type == ElementType.INT) {
+                buffer.putInt((int) value);
+            } else {
+                buffer.putLong(value);
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                stats.bytesWritten += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    // Sorts a generated file of random longs, run with: java org.sri.arrays.mergesort.ExternalMergeSort [elements]
+    public static void main(String[] args) throws IOException {
+        int elements = args.length > 0 ? Integer.parseInt(args[0]) : 20_000_000;
+        Path input = Files.createTempFile("unsorted", ".bin");
+        Path output = Files.createTempFile("sorted", ".bin");
+        try {
+            Random random = new Random(11);
+            try (FileChannel channel = FileChannel.open(input, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+                for (int i = 0; i < elements; i++) {
+                    if (!buffer.hasRemaining()) {
+                        buffer.flip();
+                        channel.write(buffer);
+                        buffer.clear();
+                    }
+                    buffer.putLong(random.nextLong());
+                }
+                buffer.flip();
+                channel.write(buffer);
+            }
+
+            Options options = new Options().runSize(1 << 21).fanIn(8);
+            Stats stats = new ExternalMergeSort(options).sort(input, output, ElementType.LONG);
+            System.out.println(stats);
+
+            try (FileChannel channel = FileChannel.open(output, StandardOpenOption.READ)) {
+                MappedByteBuffer sorted = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                long previous = Long.MIN_VALUE;
+                for (int i = 0; i < elements; i++) {
+                    long value = sorted.getLong();
+                    if (value < previous) {
+                        throw new IllegalStateException("Output not sorted at element " + i);
+                    }
+                    previous = value;
+                }
+                System.out.println("Verified " + elements + " sorted values");
+            }
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+        }
+    }
+}
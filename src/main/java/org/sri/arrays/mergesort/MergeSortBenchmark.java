@@ -0,0 +1,50 @@
+package org.sri.arrays.mergesort;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// Compares ParallelMergeSort with Arrays.sort/parallelSort, run with: java -Xmx4g org.sri.arrays.mergesort.MergeSortBenchmark [size]
+public class MergeSortBenchmark {
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        Random random = new Random(7);
+        int[] ints = new int[size];
+        for (int i = 0; i < size; i++) {
+            ints[i] = random.nextInt();
+        }
+        long[] longs = new long[size];
+        for (int i = 0; i < size; i++) {
+            longs[i] = random.nextLong();
+        }
+        ParallelMergeSort sorter = new ParallelMergeSort();
+
+        for (int round = 0; round < 3; round++) {
+            System.out.println("round " + round + ", " + size + " elements");
+
+            int[] copy = ints.clone();
+            long start = System.nanoTime();
+            Arrays.parallelSort(copy);
+            report("int  Arrays.parallelSort", start);
+
+            copy = ints.clone();
+            start = System.nanoTime();
+            sorter.sort(copy);
+            report("int  ParallelMergeSort", start);
+
+            long[] longCopy = longs.clone();
+            start = System.nanoTime();
+            Arrays.parallelSort(longCopy);
+            report("long Arrays.parallelSort", start);
+
+            longCopy = longs.clone();
+            start = System.nanoTime();
+            sorter.sort(longCopy);
+            report("long ParallelMergeSort", start);
+        }
+    }
+
+    private static void report(String name, long startNanos) {
+        System.out.printf("  %-26s %8d ms%n", name, (System.nanoTime() - startNanos) / 1_000_000);
+    }
+}
@@ -0,0 +1,284 @@
+package org.sri.arrays.mergesort;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Production mode of {@link MergeSort}: sorts in place with a single auxiliary buffer.
+ * The input and the buffer start with the same contents and swap roles at every level
+ * (ping-pong), so each level merges straight from one array into the other without copying back.
+ * Small ranges use insertion sort, large ranges are sorted and merged on a ForkJoinPool.
+ */
+public class ParallelMergeSort {
+
+    public static final int DEFAULT_INSERTION_CUTOFF = 32;
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 15;
+
+    private final int insertionCutoff;
+    private final int parallelThreshold;
+    private final ForkJoinPool pool;
+
+    public ParallelMergeSort() {
+        this(DEFAULT_INSERTION_CUTOFF, DEFAULT_PARALLEL_THRESHOLD, ForkJoinPool.commonPool());
+    }
+
+    public ParallelMergeSort(int insertionCutoff, int parallelThreshold, ForkJoinPool pool) {
+        if (insertionCutoff < 1 || parallelThreshold < 2) {
+            throw new IllegalArgumentException("insertionCutoff must be >= 1 and parallelThreshold >= 2");
+        }
+        this.insertionCutoff = insertionCutoff;
+        this.parallelThreshold = parallelThreshold;
+        this.pool = pool;
+    }
+
+    public void sort(int[] arr) {
+        if (arr.length < 2) {
+            return;
+        }
+        int[] aux = arr.clone();
+        if (arr.length <= parallelThreshold) {
+            sortInto(arr, aux, 0, arr.length);
+        } else {
+            pool.invoke(new IntSortTask(arr, aux, 0, arr.length));
+        }
+    }
+
+    public void sort(long[] arr) {
+        if (arr.length < 2) {
+            return;
+        }
+        long[] aux = arr.clone();
+        if (arr.length <= parallelThreshold) {
+            sortInto(arr, aux, 0, arr.length);
+        } else {
+            pool.invoke(new LongSortTask(arr, aux, 0, arr.length));
+        }
+    }
+
+    // Sorts [lo, hi) so the result ends up in dst, src holds the same values and is used as scratch
+    private void sortInto(int[] dst, int[] src, int lo, int hi) {
+        if (hi - lo <= insertionCutoff) {
+            insertionSort(dst, lo, hi);
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        sortInto(src, dst, lo, mid);
+        sortInto(src, dst, mid, hi);
+        merge(src, lo, mid, mid, hi, dst, lo);
+    }
+
+    private void sortInto(long[] dst, long[] src, int lo, int hi) {
+        if (hi - lo <= insertionCutoff) {
+            insertionSort(dst, lo, hi);
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        sortInto(src, dst, lo, mid);
+        sortInto(src, dst, mid, hi);
+        merge(src, lo, mid, mid, hi, dst, lo);
+    }
+
+    private static void insertionSort(int[] arr, int lo, int hi) {
+        for (int i = lo + 1; i < hi; i++) {
+            int value = arr[i];
+            int j = i - 1;
+            while (j >= lo && arr[j] > value) {
+                arr[j + 1] = arr[j];
+                j--;
+            }
+            arr[j + 1] = value;
+        }
+    }
+
+    private static void insertionSort(long[] arr, int lo, int hi) {
+        for (int i = lo + 1; i < hi; i++) {
+            long value = arr[i];
+            int j = i - 1;
+            while (j >= lo && arr[j] > value) {
+                arr[j + 1] = arr[j];
+                j--;
+            }
+            arr[j + 1] = value;
+        }
+    }
+
+    // Same two-pointer merge as MergeSort.merge, but between ranges of preallocated arrays
+    private static void merge(int[] src, int i, int leftEnd, int j, int rightEnd, int[] dst, int k) {
+        if (i < leftEnd && j < rightEnd && src[leftEnd - 1] <= src[j]) {
+            // already in order, nothing to interleave
+            System.arraycopy(src, i, dst, k, leftEnd - i);
+            System.arraycopy(src, j, dst, k + leftEnd - i, rightEnd - j);
+            return;
+        }
+        while (i < leftEnd && j < rightEnd) {
+            dst[k++] = src[i] <= src[j] ? src[i++] : src[j++];
+        }
+        System.arraycopy(src, i, dst, k, leftEnd - i);
+        System.arraycopy(src, j, dst, k + leftEnd - i, rightEnd - j);
+    }
+
+    private static void merge(long[] src, int i, int leftEnd, int j, int rightEnd, long[] dst, int k) {
+        if (i < leftEnd && j < rightEnd && src[leftEnd - 1] <= src[j]) {
+            System.arraycopy(src, i, dst, k, leftEnd - i);
+            System.arraycopy(src, j, dst, k + leftEnd - i, rightEnd - j);
+            return;
+        }
+        while (i < leftEnd && j < rightEnd) {
+            dst[k++] = src[i] <= src[j] ? src[i++] : src[j++];
+        }
+        System.arraycopy(src, i, dst, k, leftEnd - i);
+        System.arraycopy(src, j, dst, k + leftEnd - i, rightEnd - j);
+    }
+
+    // first index in [lo, hi) whose value is >= key
+    private static int lowerBound(int[] arr, int lo, int hi, int key) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (arr[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static int lowerBound(long[] arr, int lo, int hi, long key) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (arr[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private class IntSortTask extends RecursiveAction {
+        private final int[] dst;
+        private final int[] src;
+        private final int lo;
+        private final int hi;
+
+        IntSortTask(int[] dst, int[] src, int lo, int hi) {
+            this.dst = dst;
+            this.src = src;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= parallelThreshold) {
+                sortInto(dst, src, lo, hi);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new IntSortTask(src, dst, lo, mid), new IntSortTask(src, dst, mid, hi));
+            new IntMergeTask(src, lo, mid, mid, hi, dst, lo).compute();
+        }
+    }
+
+    // Splits a big merge around the median of the larger run so the top levels don't run on one core
+    private class IntMergeTask extends RecursiveAction {
+        private final int[] src;
+        private final int lo1;
+        private final int hi1;
+        private final int lo2;
+        private final int hi2;
+        private final int[] dst;
+        private final int out;
+
+        IntMergeTask(int[] src, int lo1, int hi1, int lo2, int hi2, int[] dst, int out) {
+            this.src = src;
+            this.lo1 = lo1;
+            this.hi1 = hi1;
+            this.lo2 = lo2;
+            this.hi2 = hi2;
+            this.dst = dst;
+            this.out = out;
+        }
+
+        @Override
+        protected void compute() {
+            if ((hi1 - lo1) + (hi2 - lo2) <= parallelThreshold) {
+                merge(src, lo1, hi1, lo2, hi2, dst, out);
+                return;
+            }
+            if (hi1 - lo1 < hi2 - lo2) {
+                new IntMergeTask(src, lo2, hi2, lo1, hi1, dst, out).compute();
+                return;
+            }
+            int m1 = (lo1 + hi1) >>> 1;
+            int m2 = lowerBound(src, lo2, hi2, src[m1]);
+            int pivotAt = out + (m1 - lo1) + (m2 - lo2);
+            dst[pivotAt] = src[m1];
+            invokeAll(new IntMergeTask(src, lo1, m1, lo2, m2, dst, out),
+                    new IntMergeTask(src, m1 + 1, hi1, m2, hi2, dst, pivotAt + 1));
+        }
+    }
+
+    private class LongSortTask extends RecursiveAction {
+        private final long[] dst;
+        private final long[] src;
+        private final int lo;
+        private final int hi;
+
+        LongSortTask(long[] dst, long[] src, int lo, int hi) {
+            this.dst = dst;
+            this.src = src;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= parallelThreshold) {
+                sortInto(dst, src, lo, hi);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new LongSortTask(src, dst, lo, mid), new LongSortTask(src, dst, mid, hi));
+            new LongMergeTask(src, lo, mid, mid, hi, dst, lo).compute();
+        }
+    }
+
+    private class LongMergeTask extends RecursiveAction {
+        private final long[] src;
+        private final int lo1;
+        private final int hi1;
+        private final int lo2;
+        private final int hi2;
+        private final long[] dst;
+        private final int out;
+
+        LongMergeTask(long[] src, int lo1, int hi1, int lo2, int hi2, long[] dst, int out) {
+            this.src = src;
+            this.lo1 = lo1;
+            this.hi1 = hi1;
+            this.lo2 = lo2;
+            this.hi2 = hi2;
+            this.dst = dst;
+            this.out = out;
+        }
+
+        @Override
+        protected void compute() {
+            if ((hi1 - lo1) + (hi2 - lo2) <= parallelThreshold) {
+                merge(src, lo1, hi1, lo2, hi2, dst, out);
+                return;
+            }
+            if (hi1 - lo1 < hi2 - lo2) {
+                new LongMergeTask(src, lo2, hi2, lo1, hi1, dst, out).compute();
+                return;
+            }
+            int m1 = (lo1 + hi1) >>> 1;
+            int m2 = lowerBound(src, lo2, hi2, src[m1]);
+            int pivotAt = out + (m1 - lo1) + (m2 - lo2);
+            dst[pivotAt] = src[m1];
+            invokeAll(new LongMergeTask(src, lo1, m1, lo2, m2, dst, out),
+                    new LongMergeTask(src, m1 + 1, hi1, m2, hi2, dst, pivotAt + 1));
+        }
+    }
+}
@@ -13,6 +13,7 @@ public class BaseSlidingWindow {
         for(int i=windowSize;i<nums.length;i++){
             int newSum = currentsum + nums[i] - nums[i-windowSize];
             maxSum= Math.max(maxSum,newSum);
+            currentsum = newSum; // slide the window forward
         }
         return maxSum;
     }
@@ -0,0 +1,206 @@
+package org.sri.arrays.slidingwindow;
+
+import org.sri.collections.IntIntHashMap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Boxing-free versions of {@link LongestSubstringKDistinct} and
+ * {@link LongestSubstringWithoutRepeatingCharacters}. Bytes use int[256] tables,
+ * CharSequences are scanned by code point with an {@link IntIntHashMap},
+ * and every kernel is a single O(n) pass.
+ */
+public final class CharWindowKernels {
+
+    private CharWindowKernels() {
+    }
+
+    public static int longestKDistinct(byte[] input, int k) {
+        return longestKDistinct(ByteBuffer.wrap(input), k);
+    }
+
+    // Scans from the buffer's position to its limit, works on heap, direct and memory-mapped buffers
+    public static int longestKDistinct(ByteBuffer input, int k) {
+        if (k <= 0) {
+            return 0;
+        }
+        int[] counts = new int[256];
+        int distinct = 0;
+        int maxLength = 0;
+        int base = input.position();
+        int start = base;
+        for (int end = base; end < input.limit(); end++) {
+            if (counts[input.get(end) & 0xFF]++ == 0) {
+                distinct++;
+            }
+            while (distinct > k) {
+                if (--counts[input.get(start++) & 0xFF] == 0) {
+                    distinct--;
+                }
+            }
+            maxLength = Math.max(maxLength, end - start + 1);
+        }
+        return maxLength;
+    }
+
+    public static int longestWithoutRepeating(byte[] input) {
+        return longestWithoutRepeating(ByteBuffer.wrap(input));
+    }
+
+    public static int longestWithoutRepeating(ByteBuffer input) {
+        int[] lastSeen = new int[256];
+        Arrays.fill(lastSeen, -1);
+        int maxLength = 0;
+        int start = input.position();
+        for (int end = input.position(); end < input.limit(); end++) {
+            int b = input.get(end) & 0xFF;
+            if (lastSeen[b] >= start) {
+                start = lastSeen[b] + 1;
+            }
+            lastSeen[b] = end;
+            maxLength = Math.max(maxLength, end - start + 1);
+        }
+        return maxLength;
+    }
+
+    // For files past the 2GB ByteBuffer limit: the window's two ends read the channel through their own buffers
+    public static long longestKDistinct(FileChannel channel, int k) throws IOException {
+        if (k <= 0) {
+            return 0;
+        }
+        long[] counts = new long[256];
+        int distinct = 0;
+        long maxLength = 0;
+        ChannelCursor endCursor = new ChannelCursor(channel);
+        ChannelCursor startCursor = new ChannelCursor(channel);
+        long start = 0;
+        for (long end = 0; endCursor.hasNext(); end++) {
+            if (counts[endCursor.next()]++ == 0) {
+                distinct++;
+            }
+            while (distinct > k) {
+                start++;
+                if (--counts[startCursor.next()] == 0) {
+                    distinct--;
+                }
+            }
+            maxLength = Math.max(maxLength, end - start + 1);
+        }
+        return maxLength;
+    }
+
+    public static long longestWithoutRepeating(FileChannel channel) throws IOException {
+        long[] lastSeen = new long[256];
+        Arrays.fill(lastSeen, -1);
+        long maxLength = 0;
+        long start = 0;
+        ChannelCursor cursor = new ChannelCursor(channel);
+        for (long end = 0; cursor.hasNext(); end++) {
+            int b = cursor.next();
+            if (lastSeen[b] >= start) {
+                start = lastSeen[b] + 1;
+            }
+            lastSeen[b] = end;
+            maxLength = Math.max(maxLength, end - start + 1);
+        }
+        return maxLength;
+    }
+
+    // Lengths are counted in code points, so a surrogate pair is one character
+    public static int longestKDistinct(CharSequence input, int k) {
+        if (input == null || k <= 0) {
+            return 0;
+        }
+        IntIntHashMap counts = new IntIntHashMap();
+        int distinct = 0;
+        int maxLength = 0;
+        int window = 0;
+        int start = 0;
+        int end = 0;
+        while (end < input.length()) {
+            int codePoint = Character.codePointAt(input, end);
+            end += Character.charCount(codePoint);
+            window++;
+            if (counts.addTo(codePoint, 1) == 1) {
+                distinct++;
+            }
+            while (distinct > k) {
+                int first = Character.codePointAt(input, start);
+                start += Character.charCount(first);
+                window--;
+                if (counts.addTo(first, -1) == 0) {
+                    distinct--;
+                }
+            }
+            maxLength = Math.max(maxLength, window);
+        }
+        return maxLength;
+    }
+
+    public static int longestWithoutRepeating(CharSequence input) {
+        if (input == null) {
+            return 0;
+        }
+        // remembers 1 + the code point index of the last occurrence, 0 meaning unseen
+        IntIntHashMap lastSeen = new IntIntHashMap();
+        int maxLength = 0;
+        int start = 0;
+        int index = 0;
+        int offset = 0;
+        while (offset < input.length()) {
+            int codePoint = Character.codePointAt(input, offset);
+            offset += Character.charCount(codePoint);
+            int previous = lastSeen.getOrDefault(codePoint, 0) - 1;
+            if (previous >= start) {
+                start = previous + 1;
+            }
+            lastSeen.put(codePoint, index + 1);
+            maxLength = Math.max(maxLength, index - start + 1);
+            index++;
+        }
+        return maxLength;
+    }
+
+    // Sequential reader over a channel using positional reads, so several cursors can share one channel
+    private static final class ChannelCursor {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+        private long position;
+
+        ChannelCursor(FileChannel channel) {
+            this.channel = channel;
+            buffer.flip();
+        }
+
+        boolean hasNext() throws IOException {
+            if (buffer.hasRemaining()) {
+                return true;
+            }
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            buffer.flip();
+            if (read <= 0) {
+                return false;
+            }
+            position += read;
+            return true;
+        }
+
+        int next() throws IOException {
+            if (!hasNext()) {
+                throw new IOException("Unexpected end of channel at " + position);
+            }
+            return buffer.get() & 0xFF;
+        }
+    }
+
+    public static void main(String[] args) {
+        System.out.println(longestKDistinct("eceba", 2)); // Output: 3
+        System.out.println(longestKDistinct("aaabbcc".getBytes(), 2)); // Output: 5
+        System.out.println(longestWithoutRepeating("abcabcd")); // Output: 4
+        System.out.println(longestWithoutRepeating("😀a😀b")); // Output: 3
+    }
+}
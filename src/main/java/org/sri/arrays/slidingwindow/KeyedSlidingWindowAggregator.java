@@ -0,0 +1,111 @@
+package org.sri.arrays.slidingwindow;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * One {@link SlidingWindowAggregator} per series key, safe to feed from many threads.
+ * Lookups go through a ConcurrentHashMap and each series is locked on its own,
+ * so writers to different series never contend.
+ */
+public class KeyedSlidingWindowAggregator {
+
+    private final Map<String, SlidingWindowAggregator> series = new ConcurrentHashMap<>();
+    private final Function<String, SlidingWindowAggregator> factory;
+
+    private KeyedSlidingWindowAggregator(Function<String, SlidingWindowAggregator> factory) {
+        this.factory = factory;
+    }
+
+    public static KeyedSlidingWindowAggregator countWindows(int windowSize) {
+        return new KeyedSlidingWindowAggregator(key -> SlidingWindowAggregator.countWindow(windowSize));
+    }
+
+    public static KeyedSlidingWindowAggregator timeWindows(long duration, int maxValuesPerSeries) {
+        return new KeyedSlidingWindowAggregator(key -> SlidingWindowAggregator.timeWindow(duration, maxValuesPerSeries));
+    }
+
+    private SlidingWindowAggregator window(String key) {
+        SlidingWindowAggregator window = series.get(key);
+        return window != null ? window : series.computeIfAbsent(key, factory);
+    }
+
+    public void add(String key, double value) {
+        SlidingWindowAggregator window = window(key);
+        synchronized (window) {
+            window.add(value);
+        }
+    }
+
+    public void add(String key, long timestamp, double value) {
+        SlidingWindowAggregator window = window(key);
+        synchronized (window) {
+            window.add(timestamp, value);
+        }
+    }
+
+    public void addAll(String key, double[] batch, int from, int to) {
+        SlidingWindowAggregator window = window(key);
+        synchronized (window) {
+            window.addAll(batch, from, to);
+        }
+    }
+
+    public double sum(String key) {
+        SlidingWindowAggregator window = series.get(key);
+        if (window == null) {
+            return 0;
+        }
+        synchronized (window) {
+            return window.sum();
+        }
+    }
+
+    public double average(String key) {
+        SlidingWindowAggregator window = series.get(key);
+        if (window == null) {
+            return Double.NaN;
+        }
+        synchronized (window) {
+            return window.average();
+        }
+    }
+
+    public double min(String key) {
+        SlidingWindowAggregator window = series.get(key);
+        if (window == null) {
+            return Double.NaN;
+        }
+        synchronized (window) {
+            return window.min();
+        }
+    }
+
+    public double max(String key) {
+        SlidingWindowAggregator window = series.get(key);
+        if (window == null) {
+            return Double.NaN;
+        }
+        synchronized (window) {
+            return window.max();
+        }
+    }
+
+    // Evicts expired values of every time-window series
+    public void advanceAllTo(long now) {
+        for (SlidingWindowAggregator window : series.values()) {
+            synchronized (window) {
+                window.advanceTo(now);
+            }
+        }
+    }
+
+    public int seriesCount() {
+        return series.size();
+    }
+
+    public void remove(String key) {
+        series.remove(key);
+    }
+}
@@ -28,7 +28,7 @@ public class LongestSubstringKDistinct {
             }
 
             // Update the maximum length
-            maxLength = Math.max(maxLength, charFrequencyMap.values().stream().reduce(0,Integer::sum));
+            maxLength = Math.max(maxLength, end - start + 1); // the window size, no need to sum the counts
         }
 
         return maxLength;
@@ -0,0 +1,220 @@
+package org.sri.arrays.slidingwindow;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parallel, long-accumulating versions of {@link SmallestSubArray} and {@link LongestSubArray}.
+ * Both scans need non-negative input, same as the sequential two-pointer versions.
+ * A prefix-sum array makes any window sum an O(1) lookup, so each chunk of right
+ * pointers finds its starting left pointer with a binary search and then runs the usual
+ * two-pointer scan on its own. Windows crossing chunk boundaries are therefore handled
+ * exactly, and chunks only need to combine their best lengths.
+ */
+public class ParallelSubArraySearch {
+
+    private static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    public ParallelSubArraySearch() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    public ParallelSubArraySearch(ForkJoinPool pool, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    // Length of the shortest window with sum >= value, 0 if there is none
+    public int smallestSubArray(int[] nums, long value) {
+        long[] prefix = prefixSums(nums);
+        int best = pool.invoke(new SmallestTask(prefix, value, 0, nums.length));
+        return best == Integer.MAX_VALUE ? 0 : best;
+    }
+
+    // Length of the longest window with sum == k, 0 if there is none
+    public int longestSubArray(int[] nums, long k) {
+        long[] prefix = prefixSums(nums);
+        if (k < 0) {
+            return 0; // no window of non-negative values sums to a negative k, and the scan would run off the end
+        }
+        return pool.invoke(new LongestTask(prefix, k, 0, nums.length));
+    }
+
+    // prefix[i] is the sum of nums[0..i), so sum(l..r) = prefix[r + 1] - prefix[l]
+    long[] prefixSums(int[] nums) {
+        long[] prefix = new long[nums.length + 1];
+        pool.invoke(new CopyTask(nums, prefix, 0, nums.length));
+        if (pool == ForkJoinPool.commonPool()) {
+            Arrays.parallelPrefix(prefix, Long::sum);
+        } else {
+            // parallelPrefix always runs on the common pool, keep the work on the caller's pool instead
+            pool.submit(() -> Arrays.parallelPrefix(prefix, Long::sum)).join();
+        }
+        return prefix;
+    }
+
+    private class CopyTask extends RecursiveAction {
+        private final int[] nums;
+        private final long[] prefix;
+        private final int lo;
+        private final int hi;
+
+        CopyTask(int[] nums, long[] prefix, int lo, int hi) {
+            this.nums = nums;
+            this.prefix = prefix;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= chunkSize) {
+                for (int i = lo; i < hi; i++) {
+                    if (nums[i] < 0) {
+                        throw new IllegalArgumentException("Sliding window search needs non-negative values, found "
+                                + nums[i] + " at " + i);
+                    }
+                    prefix[i + 1] = nums[i];
+                }
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new CopyTask(nums, prefix, lo, mid), new CopyTask(nums, prefix, mid, hi));
+        }
+    }
+
+    private class SmallestTask extends RecursiveTask<Integer> {
+        private final long[] prefix;
+        private final long value;
+        private final int lo;
+        private final int hi;
+
+        SmallestTask(long[] prefix, long value, int lo, int hi) {
+            this.prefix = prefix;
+            this.value = value;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (hi - lo > chunkSize) {
+                int mid = (lo + hi) >>> 1;
+                SmallestTask left = new SmallestTask(prefix, value, lo, mid);
+                left.fork();
+                int right = new SmallestTask(prefix, value, mid, hi).compute();
+                return Math.min(left.join(), right);
+            }
+            int minLength = Integer.MAX_VALUE;
+            // left = last start whose window still reaches value, carried across right pointers like the sequential scan
+            int left = -1;
+            for (int right = lo; right < hi; right++) {
+                long target = prefix[right + 1] - value;
+                if (left < 0) {
+                    left = lastAtMost(prefix, right + 1, target);
+                    if (left < 0) {
+                        continue;
+                    }
+                }
+                while (left + 1 <= right && prefix[left + 1] <= target) {
+                    left++;
+                }
+                if (prefix[left] <= target) {
+                    minLength = Math.min(minLength, right - left + 1);
+                }
+            }
+            return minLength;
+        }
+    }
+
+    private class LongestTask extends RecursiveTask<Integer> {
+        private final long[] prefix;
+        private final long k;
+        private final int lo;
+        private final int hi;
+
+        LongestTask(long[] prefix, long k, int lo, int hi) {
+            this.prefix = prefix;
+            this.k = k;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (hi - lo > chunkSize) {
+                int mid = (lo + hi) >>> 1;
+                LongestTask left = new LongestTask(prefix, k, lo, mid);
+                left.fork();
+                int right = new LongestTask(prefix, k, mid, hi).compute();
+                return Math.max(left.join(), right);
+            }
+            if (lo == hi) {
+                return 0; // empty input, there is no prefix[lo + 1]
+            }
+            int maxSize = 0;
+            // left = first start whose window sum is <= k, found once by binary search then moved like the sequential scan
+            int left = firstAtLeast(prefix, lo + 1, prefix[lo + 1] - k);
+            for (int right = lo; right < hi; right++) {
+                long target = prefix[right + 1] - k;
+                while (prefix[left] < target) {
+                    left++;
+                }
+                if (left <= right && prefix[right + 1] - prefix[left] == k) {
+                    maxSize = Math.max(maxSize, right - left + 1);
+                }
+            }
+            return maxSize;
+        }
+    }
+
+    // first index in [0, end] with prefix[i] >= key
+    private static int firstAtLeast(long[] prefix, int end, long key) {
+        int lo = 0;
+        int hi = end;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (prefix[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // last index in [0, end) with prefix[i] <= key, or -1
+    private static int lastAtMost(long[] prefix, int end, long key) {
+        int lo = 0;
+        int hi = end;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (prefix[mid] <= key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo - 1;
+    }
+
+    public static void main(String[] args) {
+        ParallelSubArraySearch search = new ParallelSubArraySearch();
+        System.out.println(search.smallestSubArray(new int[]{2, 3, 1, 2, 4, 3}, 7)); // 2
+        System.out.println(search.longestSubArray(new int[]{1, 2, 3, 1, 1, 1, 2, 1}, 6)); // 5
+
+        int[] big = new int[50_000_000];
+        Arrays.fill(big, Integer.MAX_VALUE); // int sums would overflow after two elements
+        long start = System.nanoTime();
+        System.out.println(search.smallestSubArray(big, 10L * Integer.MAX_VALUE)); // 10
+        System.out.println("took " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+}
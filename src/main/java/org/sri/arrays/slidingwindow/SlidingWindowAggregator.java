@@ -0,0 +1,198 @@
+package org.sri.arrays.slidingwindow;
+
+/**
+ * Streaming version of {@link BaseSlidingWindow}: keeps a rolling sum, min, max and average
+ * over the last N values (count window) or the values of the last T time units (time window).
+ * Values live in a primitive ring buffer; min and max are kept in monotonic deques of
+ * sequence numbers, so every add is amortized O(1) and nothing is boxed. The running sum
+ * is compensated (Neumaier) and recomputed from the window once per capacity evictions,
+ * so evicting a huge value does not wipe out the small ones added next to it.
+ * Not thread-safe, see {@link KeyedSlidingWindowAggregator} for concurrent series.
+ */
+public class SlidingWindowAggregator {
+
+    private final int capacity;
+    private final long windowDuration; // 0 for count windows
+    private final double[] values;
+    private final long[] timestamps;
+
+    // sequence numbers: values [head, tail) are in the window, slot = sequence % capacity
+    private long head;
+    private long tail;
+    private double sum;
+    private double compensation; // low-order bits lost from sum
+    private int evictionsSinceRecompute;
+
+    // deques of sequence numbers whose values are increasing (min) / decreasing (max)
+    private final long[] minDeque;
+    private long minHead;
+    private long minTail;
+    private final long[] maxDeque;
+    private long maxHead;
+    private long maxTail;
+
+    private SlidingWindowAggregator(int capacity, long windowDuration) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.windowDuration = windowDuration;
+        this.values = new double[capacity];
+        this.timestamps = windowDuration > 0 ? new long[capacity] : null;
+        this.minDeque = new long[capacity];
+        this.maxDeque = new long[capacity];
+    }
+
+    // Window over the last windowSize values
+    public static SlidingWindowAggregator countWindow(int windowSize) {
+        return new SlidingWindowAggregator(windowSize, 0);
+    }
+
+    // Window over values whose timestamp is within duration of the newest one, holding at most maxValues
+    public static SlidingWindowAggregator timeWindow(long duration, int maxValues) {
+        if (duration <= 0) {
+            throw new IllegalArgumentException("duration must be positive: " + duration);
+        }
+        return new SlidingWindowAggregator(maxValues, duration);
+    }
+
+    public void add(double value) {
+        if (windowDuration > 0) {
+            throw new IllegalStateException("Time windows need a timestamp, use add(timestamp, value)");
+        }
+        append(value);
+    }
+
+    public void add(long timestamp, double value) {
+        if (windowDuration == 0) {
+            throw new IllegalStateException("Count windows don't take timestamps, use add(value)");
+        }
+        if (tail > head && timestamp < timestamps[slot(tail - 1)]) {
+            throw new IllegalArgumentException("Timestamps must not go backwards: " + timestamp);
+        }
+        advanceTo(timestamp);
+        timestamps[slot(tail)] = timestamp;
+        append(value);
+    }
+
+    public void addAll(double[] batch, int from, int to) {
+        for (int i = from; i < to; i++) {
+            add(batch[i]);
+        }
+    }
+
+    public void addAll(long[] batchTimestamps, double[] batch, int from, int to) {
+        for (int i = from; i < to; i++) {
+            add(batchTimestamps[i], batch[i]);
+        }
+    }
+
+    // Evicts values that fell out of a time window, e.g. before reading when no new values arrived
+    public void advanceTo(long now) {
+        if (windowDuration == 0) {
+            return;
+        }
+        while (head < tail && timestamps[slot(head)] <= now - windowDuration) {
+            evictOldest();
+        }
+    }
+
+    private void append(double value) {
+        if (tail - head == capacity) {
+            evictOldest();
+        }
+        values[slot(tail)] = value;
+        addToSum(value);
+
+        while (minTail > minHead && values[slot(minDeque[slot(minTail - 1)])] >= value) {
+            minTail--;
+        }
+        minDeque[slot(minTail++)] = tail;
+        while (maxTail > maxHead && values[slot(maxDeque[slot(maxTail - 1)])] <= value) {
+            maxTail--;
+        }
+        maxDeque[slot(maxTail++)] = tail;
+        tail++;
+    }
+
+    private void evictOldest() {
+        addToSum(-values[slot(head)]);
+        if (minDeque[slot(minHead)] == head) {
+            minHead++;
+        }
+        if (maxDeque[slot(maxHead)] == head) {
+            maxHead++;
+        }
+        head++;
+        if (head == tail) {
+            sum = compensation = 0; // drop accumulated floating point drift whenever the window empties
+            evictionsSinceRecompute = 0;
+        } else if (++evictionsSinceRecompute == capacity) {
+            recomputeSum(); // amortized O(1), bounds the error to what one window can accumulate
+        }
+    }
+
+    private void addToSum(double value) {
+        double total = sum + value;
+        if (Math.abs(sum) >= Math.abs(value)) {
+            compensation += (sum - total) + value;
+        } else {
+            compensation += (value - total) + sum;
+        }
+        sum = total;
+    }
+
+    private void recomputeSum() {
+        sum = compensation = 0;
+        evictionsSinceRecompute = 0;
+        for (long sequence = head; sequence < tail; sequence++) {
+            addToSum(values[slot(sequence)]);
+        }
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence % capacity);
+    }
+
+    public int count() {
+        return (int) (tail - head);
+    }
+
+    public double sum() {
+        return sum + compensation;
+    }
+
+    public double average() {
+        return head == tail ? Double.NaN : sum() / (tail - head);
+    }
+
+    public double min() {
+        return head == tail ? Double.NaN : values[slot(minDeque[slot(minHead)])];
+    }
+
+    public double max() {
+        return head == tail ? Double.NaN : values[slot(maxDeque[slot(maxHead)])];
+    }
+
+    public void clear() {
+        head = tail = minHead = minTail = maxHead = maxTail = 0;
+        sum = compensation = 0;
+        evictionsSinceRecompute = 0;
+    }
+
+    public static void main(String[] args) {
+        SlidingWindowAggregator window = SlidingWindowAggregator.countWindow(3);
+        double[] readings = {4, 2, 12, 3, 8, 1};
+        for (double reading : readings) {
+            window.add(reading);
+            System.out.println("sum=" + window.sum() + " min=" + window.min() + " max=" + window.max()
+                    + " avg=" + window.average());
+        }
+
+        SlidingWindowAggregator lastSecond = SlidingWindowAggregator.timeWindow(1000, 1024);
+        lastSecond.add(0, 5);
+        lastSecond.add(400, 9);
+        lastSecond.add(1200, 1); // the reading at 0 is now out of the window
+        System.out.println("count=" + lastSecond.count() + " max=" + lastSecond.max()); // count=2 max=9.0
+    }
+}
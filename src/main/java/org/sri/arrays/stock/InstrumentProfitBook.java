@@ -0,0 +1,122 @@
+package org.sri.arrays.stock;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link ProfitTracker} per instrument, fed concurrently from many threads.
+ * Instruments are spread over a fixed number of lock stripes, each stripe owning a plain
+ * HashMap, so ticks for instruments on different stripes never contend.
+ */
+public class InstrumentProfitBook {
+
+    public static class Snapshot {
+        private final long ticks;
+        private final double bestSingleTrade;
+        private final double bestKTransactions;
+        private final double bestWithCooldown;
+        private final double bestWithFee;
+
+        Snapshot(ProfitTracker tracker) {
+            this.ticks = tracker.getTicks();
+            this.bestSingleTrade = tracker.bestSingleTradeProfit();
+            this.bestKTransactions = tracker.bestKTransactionProfit();
+            this.bestWithCooldown = tracker.bestProfitWithCooldown();
+            this.bestWithFee = tracker.bestProfitWithFee();
+        }
+
+        public long getTicks() {
+            return ticks;
+        }
+
+        public double getBestSingleTrade() {
+            return bestSingleTrade;
+        }
+
+        public double getBestKTransactions() {
+            return bestKTransactions;
+        }
+
+        public double getBestWithCooldown() {
+            return bestWithCooldown;
+        }
+
+        public double getBestWithFee() {
+            return bestWithFee;
+        }
+
+        @Override
+        public String toString() {
+            return "ticks=" + ticks + ", single=" + bestSingleTrade + ", k=" + bestKTransactions
+                    + ", cooldown=" + bestWithCooldown + ", fee=" + bestWithFee;
+        }
+    }
+
+    private static final class Stripe {
+        final Map<String, ProfitTracker> trackers = new HashMap<>();
+    }
+
+    private final Stripe[] stripes;
+    private final int maxTransactions;
+    private final double fee;
+
+    public InstrumentProfitBook(int stripeCount, int maxTransactions, double fee) {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("stripeCount must be positive: " + stripeCount);
+        }
+        // round up to a power of two so the stripe is a mask of the hash
+        int size = 1;
+        while (size < stripeCount) {
+            size <<= 1;
+        }
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.maxTransactions = maxTransactions;
+        this.fee = fee;
+    }
+
+    private Stripe stripeFor(String instrument) {
+        int h = instrument.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (stripes.length - 1)];
+    }
+
+    public void onTick(String instrument, double price) {
+        Stripe stripe = stripeFor(instrument);
+        synchronized (stripe) {
+            ProfitTracker tracker = stripe.trackers.get(instrument);
+            if (tracker == null) {
+                tracker = new ProfitTracker(maxTransactions, fee);
+                stripe.trackers.put(instrument, tracker);
+            }
+            tracker.onTick(price);
+        }
+    }
+
+    // Consistent view of one instrument, or null if it never ticked
+    public Snapshot snapshot(String instrument) {
+        Stripe stripe = stripeFor(instrument);
+        synchronized (stripe) {
+            ProfitTracker tracker = stripe.trackers.get(instrument);
+            return tracker == null ? null : new Snapshot(tracker);
+        }
+    }
+
+    public boolean remove(String instrument) {
+        Stripe stripe = stripeFor(instrument);
+        synchronized (stripe) {
+            return stripe.trackers.remove(instrument) != null;
+        }
+    }
+
+    public int instrumentCount() {
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                count += stripe.trackers.size();
+            }
+        }
+        return count;
+    }
+}
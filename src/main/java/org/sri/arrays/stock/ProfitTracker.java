@@ -0,0 +1,117 @@
+package org.sri.arrays.stock;
+
+import java.util.Arrays;
+
+/**
+ * Online version of {@link MaxProfit#maxProfit2} for a live price feed.
+ * Each tick updates, in O(1) or O(k):
+ * the best single trade, the best profit with at most k trades,
+ * the best profit with a one-tick cooldown after every sell,
+ * and the best profit when every trade pays a fee.
+ * Not thread-safe, see {@link InstrumentProfitBook} for many instruments.
+ */
+public class ProfitTracker {
+
+    private final int maxTransactions;
+    private final double fee;
+    private long ticks;
+
+    // single trade, same as maxProfit2
+    private double minPrice = Double.POSITIVE_INFINITY;
+    private double bestSingle;
+
+    // buy[j] / sell[j]: best cash after the j-th buy / sell
+    private final double[] buy;
+    private final double[] sell;
+
+    // cooldown state machine: holding a share, just sold, resting
+    private double cooldownHold = Double.NEGATIVE_INFINITY;
+    private double cooldownSold;
+    private double cooldownRest;
+
+    // unlimited trades with a fee per completed trade
+    private double feeHold = Double.NEGATIVE_INFINITY;
+    private double feeCash;
+
+    public ProfitTracker(int maxTransactions, double fee) {
+        if (maxTransactions < 1) {
+            throw new IllegalArgumentException("maxTransactions must be at least 1: " + maxTransactions);
+        }
+        if (fee < 0) {
+            throw new IllegalArgumentException("fee must not be negative: " + fee);
+        }
+        this.maxTransactions = maxTransactions;
+        this.fee = fee;
+        this.buy = new double[maxTransactions];
+        this.sell = new double[maxTransactions];
+        Arrays.fill(buy, Double.NEGATIVE_INFINITY);
+    }
+
+    public void onTick(long price) {
+        onTick((double) price);
+    }
+
+    public void onTick(double price) {
+        ticks++;
+
+        if (price < minPrice) {
+            minPrice = price;
+        }
+        bestSingle = Math.max(bestSingle, price - minPrice);
+
+        double previousSell = 0;
+        for (int j = 0; j < maxTransactions; j++) {
+            buy[j] = Math.max(buy[j], previousSell - price);
+            sell[j] = Math.max(sell[j], buy[j] + price);
+            previousSell = sell[j];
+        }
+
+        double hold = Math.max(cooldownHold, cooldownRest - price);
+        double sold = cooldownHold + price;
+        cooldownRest = Math.max(cooldownRest, cooldownSold);
+        cooldownHold = hold;
+        cooldownSold = sold;
+
+        double cash = Math.max(feeCash, feeHold + price - fee);
+        feeHold = Math.max(feeHold, feeCash - price);
+        feeCash = cash;
+    }
+
+    public void onTicks(double[] prices, int from, int to) {
+        for (int i = from; i < to; i++) {
+            onTick(prices[i]);
+        }
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public double bestSingleTradeProfit() {
+        return bestSingle;
+    }
+
+    public double bestKTransactionProfit() {
+        return sell[maxTransactions - 1];
+    }
+
+    public double bestProfitWithCooldown() {
+        return Math.max(0, Math.max(cooldownSold, cooldownRest));
+    }
+
+    public double bestProfitWithFee() {
+        return feeCash;
+    }
+
+    public static void main(String[] args) {
+        ProfitTracker tracker = new ProfitTracker(2, 1);
+        int[] arr = {100, 180, 260, 310, 40, 695};
+        for (int price : arr) {
+            tracker.onTick(price);
+        }
+        System.out.println(tracker.bestSingleTradeProfit()); // 655.0, same as maxProfit2
+        System.out.println(tracker.bestKTransactionProfit()); // 865.0
+        System.out.println(tracker.bestProfitWithCooldown()); // 815.0, can't buy at 40 right after selling at 310
+        System.out.println(tracker.bestProfitWithFee()); // 863.0
+    }
+}
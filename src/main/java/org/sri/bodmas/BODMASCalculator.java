@@ -1,9 +1,37 @@
 package org.sri.bodmas;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 public class BODMASCalculator {
 
+    private static final ExpressionCache CACHE = new ExpressionCache(4096);
+    private static final ThreadLocal<StreamingEvaluator> EVALUATOR = ThreadLocal.withInitial(StreamingEvaluator::new);
+
+    // Compile once, evaluate many times with different variable bindings
+    public static CompiledExpression compile(String expression) {
+        return CACHE.compile(expression);
+    }
+
+    public static long evaluate(String expression, long... bindings) {
+        return compile(expression).evaluate(bindings);
+    }
+
+    // Lexes and evaluates in one pass without building tokens, supports decimals and unary minus.
+    // Each thread reuses one evaluator, so repeated calls do not allocate.
+    public static double evaluateExpression(CharSequence expression) {
+        StreamingEvaluator evaluator = EVALUATOR.get().reset(expression);
+        try {
+            if (!evaluator.evaluateNext()) {
+                throw new IllegalArgumentException("Empty expression");
+            }
+            return evaluator.doubleResult();
+        } finally {
+            evaluator.reset(""); // do not keep the caller's text reachable from the thread
+        }
+    }
+
     public static List<String> tokenize(String expression) {
         List<String> tokens = new ArrayList<>();
         StringBuilder number = new StringBuilder();
@@ -121,5 +149,20 @@ public class BODMASCalculator {
         System.out.println(tokens);// Output: [3, +, (, 2, *, 5, ), -, 8, /, 4]
         int i = evaluateExpression(tokens);
         System.out.println(i);
+
+        CompiledExpression formula = compile("price * qty - (discount + 2) / 2");
+        long[] stack = formula.newStack();
+        System.out.println(formula + " -> " + formula.evaluate(new long[]{10, 3, 4}, stack)); // 27
+
+        // One lexer and evaluator walk a whole batch of formulas without a String per token
+        ByteBuffer batch = ByteBuffer.wrap("12*-3\n2.5*4+1\n(7-2)/2".getBytes(StandardCharsets.US_ASCII));
+        StreamingEvaluator evaluator = new StreamingEvaluator().reset(batch);
+        while (evaluator.evaluateNext()) {
+            if (evaluator.isDecimalResult()) {
+                System.out.println(evaluator.doubleResult()); // 11.0
+            } else {
+                System.out.println(evaluator.longResult()); // -36, 2
+            }
+        }
     }
 }
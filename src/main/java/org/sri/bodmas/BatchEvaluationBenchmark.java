@@ -0,0 +1,96 @@
+package org.sri.bodmas;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+// Compares the per-row Stack<Integer> path with compiled and batch evaluation, run with: java org.sri.bodmas.BatchEvaluationBenchmark [rows]
+public class BatchEvaluationBenchmark {
+
+    private static final String FORMULA = "(a + b) * c - a / (b + 1) + 7";
+    // numeric placeholders for the variables, since tokenize only understands numbers
+    private static final String A = "900001";
+    private static final String B = "900002";
+    private static final String C = "900003";
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        Random random = new Random(42);
+        long[] a = new long[rows];
+        long[] b = new long[rows];
+        long[] c = new long[rows];
+        for (int i = 0; i < rows; i++) {
+            a[i] = random.nextInt(1000);
+            b[i] = random.nextInt(1000);
+            c[i] = random.nextInt(1000);
+        }
+        CompiledExpression expression = BODMASCalculator.compile(FORMULA);
+        long[][] columns = {a, b, c};
+        long[] out = new long[rows];
+
+        for (int round = 0; round < 3; round++) {
+            System.out.println("round " + round);
+            // the token path is far slower, so it only gets a slice of the rows
+            int stackRows = Math.min(rows, 200_000);
+            long start = System.nanoTime();
+            long check = stackPath(a, b, c, stackRows);
+            report("Stack<Integer> per row", start, stackRows, check);
+
+            start = System.nanoTime();
+            long[] bindings = new long[3];
+            long[] stack = expression.newStack();
+            check = 0;
+            for (int i = 0; i < rows; i++) {
+                bindings[0] = a[i];
+                bindings[1] = b[i];
+                bindings[2] = c[i];
+                check += expression.evaluate(bindings, stack);
+            }
+            report("compiled per row", start, rows, check);
+
+            BatchEvaluator batch = new BatchEvaluator(expression);
+            start = System.nanoTime();
+            batch.evaluate(columns, out);
+            report("batch", start, rows, sum(out));
+
+            start = System.nanoTime();
+            batch.evaluateParallel(columns, out, ForkJoinPool.commonPool());
+            report("batch parallel", start, rows, sum(out));
+        }
+    }
+
+    private static long stackPath(long[] a, long[] b, long[] c, int rows) {
+        // substitute the row's values into the token list, like a caller of evaluateExpression would
+        List<String> template = BODMASCalculator.tokenize(FORMULA.replace("a", A).replace("b", B).replace("c", C));
+        List<String> tokens = new ArrayList<>(template);
+        long check = 0;
+        for (int i = 0; i < rows; i++) {
+            for (int t = 0; t < template.size(); t++) {
+                String token = template.get(t);
+                if (token.equals(A)) {
+                    tokens.set(t, String.valueOf(a[i]));
+                } else if (token.equals(B)) {
+                    tokens.set(t, String.valueOf(b[i]));
+                } else if (token.equals(C)) {
+                    tokens.set(t, String.valueOf(c[i]));
+                }
+            }
+            check += BODMASCalculator.evaluateExpression(tokens);
+        }
+        return check;
+    }
+
+    private static long sum(long[] values) {
+        long total = 0;
+        for (long value : values) {
+            total += value;
+        }
+        return total;
+    }
+
+    private static void report(String name, long startNanos, int rows, long check) {
+        long elapsed = System.nanoTime() - startNanos;
+        System.out.printf("  %-24s %8.2f ns/row  (checksum %d)%n", name, (double) elapsed / rows, check);
+    }
+}
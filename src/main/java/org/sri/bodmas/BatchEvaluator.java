@@ -0,0 +1,223 @@
+package org.sri.bodmas;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import static org.sri.bodmas.CompiledExpression.*;
+
+/**
+ * Evaluates one compiled expression over columns of variable values.
+ * Rows are processed a chunk at a time: every opcode runs as a tight loop over
+ * the whole chunk, which keeps the interpreter dispatch out of the per-row path
+ * and gives the JIT simple array loops it can unroll and vectorize.
+ * Columns are indexed by variable slot, see {@link CompiledExpression#getVariables()}.
+ */
+public final class BatchEvaluator {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1024;
+    private static final int PARALLEL_THRESHOLD = 64 * 1024;
+
+    private final CompiledExpression expression;
+    private final int chunkSize;
+
+    public BatchEvaluator(CompiledExpression expression) {
+        this(expression, DEFAULT_CHUNK_SIZE);
+    }
+
+    public BatchEvaluator(CompiledExpression expression, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        this.expression = expression;
+        this.chunkSize = chunkSize;
+    }
+
+    public void evaluate(long[][] columns, long[] out) {
+        checkColumns(columns, out.length);
+        evaluateRange(columns, out, 0, out.length);
+    }
+
+    public void evaluate(double[][] columns, double[] out) {
+        checkColumns(columns, out.length);
+        evaluateRange(columns, out, 0, out.length);
+    }
+
+    // Splits the rows across the pool, each task evaluates its range chunk by chunk
+    public void evaluateParallel(long[][] columns, long[] out, ForkJoinPool pool) {
+        checkColumns(columns, out.length);
+        pool.invoke(new RangeTask(columns, null, out, null, 0, out.length));
+    }
+
+    public void evaluateParallel(double[][] columns, double[] out, ForkJoinPool pool) {
+        checkColumns(columns, out.length);
+        pool.invoke(new RangeTask(null, columns, null, out, 0, out.length));
+    }
+
+    private void checkColumns(long[][] columns, int rows) {
+        if (!expression.isIntegral()) {
+            throw new IllegalStateException("\"" + expression.getSource() + "\" has decimal constants, use double columns");
+        }
+        checkColumnCount(columns.length);
+        for (int i = 0; i < expression.getVariables().length; i++) {
+            checkColumnLength(i, columns[i].length, rows);
+        }
+    }
+
+    private void checkColumns(double[][] columns, int rows) {
+        checkColumnCount(columns.length);
+        for (int i = 0; i < expression.getVariables().length; i++) {
+            checkColumnLength(i, columns[i].length, rows);
+        }
+    }
+
+    private void checkColumnCount(int columnCount) {
+        int variables = expression.getVariables().length;
+        if (columnCount < variables) {
+            throw new IllegalArgumentException("Expected " + variables + " columns but got " + columnCount);
+        }
+    }
+
+    private static void checkColumnLength(int column, int length, int rows) {
+        if (length < rows) {
+            throw new IllegalArgumentException("Column " + column + " has " + length + " rows, expected " + rows);
+        }
+    }
+
+    private void evaluateRange(long[][] columns, long[] out, int from, int to) {
+        int[] code = expression.code();
+        long[] constants = expression.constants();
+        long[][] registers = new long[Math.max(1, expression.getMaxStackDepth())][chunkSize];
+
+        for (int start = from; start < to; start += chunkSize) {
+            int length = Math.min(chunkSize, to - start);
+            int sp = 0;
+            for (int instruction : code) {
+                int op = instruction & 0xFF;
+                if (op == OP_CONST) {
+                    Arrays.fill(registers[sp++], 0, length, constants[instruction >>> 8]);
+                } else if (op == OP_VAR) {
+                    System.arraycopy(columns[instruction >>> 8], start, registers[sp++], 0, length);
+                } else if (op == OP_NEG) {
+                    long[] a = registers[sp - 1];
+                    for (int i = 0; i < length; i++) {
+                        a[i] = -a[i];
+                    }
+                } else {
+                    sp--;
+                    long[] a = registers[sp - 1];
+                    long[] b = registers[sp];
+                    switch (op) {
+                        case OP_ADD:
+                            for (int i = 0; i < length; i++) {
+                                a[i] += b[i];
+                            }
+                            break;
+                        case OP_SUB:
+                            for (int i = 0; i < length; i++) {
+                                a[i] -= b[i];
+                            }
+                            break;
+                        case OP_MUL:
+                            for (int i = 0; i < length; i++) {
+                                a[i] *= b[i];
+                            }
+                            break;
+                        case OP_DIV:
+                            for (int i = 0; i < length; i++) {
+                                a[i] /= b[i];
+                            }
+                            break;
+                    }
+                }
+            }
+            System.arraycopy(registers[0], 0, out, start, length);
+        }
+    }
+
+    private void evaluateRange(double[][] columns, double[] out, int from, int to) {
+        int[] code = expression.code();
+        double[] constants = expression.doubleConstants();
+        double[][] registers = new double[Math.max(1, expression.getMaxStackDepth())][chunkSize];
+
+        for (int start = from; start < to; start += chunkSize) {
+            int length = Math.min(chunkSize, to - start);
+            int sp = 0;
+            for (int instruction : code) {
+                int op = instruction & 0xFF;
+                if (op == OP_CONST) {
+                    Arrays.fill(registers[sp++], 0, length, constants[instruction >>> 8]);
+                } else if (op == OP_VAR) {
+                    System.arraycopy(columns[instruction >>> 8], start, registers[sp++], 0, length);
+                } else if (op == OP_NEG) {
+                    double[] a = registers[sp - 1];
+                    for (int i = 0; i < length; i++) {
+                        a[i] = -a[i];
+                    }
+                } else {
+                    sp--;
+                    double[] a = registers[sp - 1];
+                    double[] b = registers[sp];
+                    switch (op) {
+                        case OP_ADD:
+                            for (int i = 0; i < length; i++) {
+                                a[i] += b[i];
+                            }
+                            break;
+                        case OP_SUB:
+                            for (int i = 0; i < length; i++) {
+                                a[i] -= b[i];
+                            }
+                            break;
+                        case OP_MUL:
+                            for (int i = 0; i < length; i++) {
+                                a[i] *= b[i];
+                            }
+                            break;
+                        case OP_DIV:
+                            for (int i = 0; i < length; i++) {
+                                a[i] /= b[i];
+                            }
+                            break;
+                    }
+                }
+            }
+            System.arraycopy(registers[0], 0, out, start, length);
+        }
+    }
+
+    private class RangeTask extends RecursiveAction {
+        private final long[][] longColumns;
+        private final double[][] doubleColumns;
+        private final long[] longOut;
+        private final double[] doubleOut;
+        private final int from;
+        private final int to;
+
+        RangeTask(long[][] longColumns, double[][] doubleColumns, long[] longOut, double[] doubleOut, int from, int to) {
+            this.longColumns = longColumns;
+            this.doubleColumns = doubleColumns;
+            this.longOut = longOut;
+            this.doubleOut = doubleOut;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            // keep split points on chunk boundaries so every task works on full chunks
+            int mid = from + ((to - from) / 2 / chunkSize) * chunkSize;
+            // a chunk larger than half the range cannot be split further
+            if (to - from <= PARALLEL_THRESHOLD || mid == from || mid == to) {
+                if (longOut != null) {
+                    evaluateRange(longColumns, longOut, from, to);
+                } else {
+                    evaluateRange(doubleColumns, doubleOut, from, to);
+                }
+                return;
+            }
+            invokeAll(new RangeTask(longColumns, doubleColumns, longOut, doubleOut, from, mid),
+                    new RangeTask(longColumns, doubleColumns, longOut, doubleOut, mid, to));
+        }
+    }
+}
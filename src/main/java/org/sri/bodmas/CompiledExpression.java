@@ -0,0 +1,218 @@
+package org.sri.bodmas;
+
+import java.util.Arrays;
+
+/**
+ * A BODMAS expression compiled once into a postfix program of int opcodes.
+ * Evaluation walks the program over a primitive operand stack, so evaluating
+ * against a caller supplied stack does not allocate.
+ * Instances are immutable and can be shared between threads.
+ */
+public final class CompiledExpression {
+
+    // opcode lives in the low byte, the operand (constant or variable slot) in the upper bits
+    static final int OP_CONST = 0;
+    static final int OP_VAR = 1;
+    static final int OP_ADD = 2;
+    static final int OP_SUB = 3;
+    static final int OP_MUL = 4;
+    static final int OP_DIV = 5;
+    static final int OP_NEG = 6;
+
+    private final String source;
+    private final int[] code;
+    private final long[] constants;
+    private final double[] doubleConstants;
+    private final boolean integral;
+    private final String[] variables;
+    private final int maxStackDepth;
+
+    CompiledExpression(String source, int[] code, long[] constants, double[] doubleConstants, boolean integral,
+                       String[] variables, int maxStackDepth) {
+        this.source = source;
+        this.code = code;
+        this.constants = constants;
+        this.doubleConstants = doubleConstants;
+        this.integral = integral;
+        this.variables = variables;
+        this.maxStackDepth = maxStackDepth;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    // Variable names in slot order, bindings are passed in the same order
+    public String[] getVariables() {
+        return variables.clone();
+    }
+
+    public int variableIndex(String name) {
+        for (int i = 0; i < variables.length; i++) {
+            if (variables[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // False when the expression has decimal constants and can only be evaluated as double
+    public boolean isIntegral() {
+        return integral;
+    }
+
+    public int getMaxStackDepth() {
+        return maxStackDepth;
+    }
+
+    int[] code() {
+        return code;
+    }
+
+    long[] constants() {
+        return constants;
+    }
+
+    double[] doubleConstants() {
+        return doubleConstants;
+    }
+
+    // A scratch stack big enough for this expression, reuse it per thread to avoid allocation
+    public long[] newStack() {
+        return new long[maxStackDepth];
+    }
+
+    public long evaluate(long... bindings) {
+        return evaluate(bindings, newStack());
+    }
+
+    public long evaluate(long[] bindings, long[] stack) {
+        if (!integral) {
+            throw new IllegalStateException("\"" + source + "\" has decimal constants, use evaluateDouble");
+        }
+        checkArguments(bindings.length, stack.length);
+        int sp = 0;
+        for (int instruction : code) {
+            switch (instruction & 0xFF) {
+                case OP_CONST:
+                    stack[sp++] = constants[instruction >>> 8];
+                    break;
+                case OP_VAR:
+                    stack[sp++] = bindings[instruction >>> 8];
+                    break;
+                case OP_ADD:
+                    sp--;
+                    stack[sp - 1] += stack[sp];
+                    break;
+                case OP_SUB:
+                    sp--;
+                    stack[sp - 1] -= stack[sp];
+                    break;
+                case OP_MUL:
+                    sp--;
+                    stack[sp - 1] *= stack[sp];
+                    break;
+                case OP_DIV:
+                    sp--;
+                    stack[sp - 1] /= stack[sp];
+                    break;
+                case OP_NEG:
+                    stack[sp - 1] = -stack[sp - 1];
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown opcode " + (instruction & 0xFF));
+            }
+        }
+        return stack[0];
+    }
+
+    public double evaluateDouble(double... bindings) {
+        return evaluateDouble(bindings, new double[maxStackDepth]);
+    }
+
+    public double evaluateDouble(double[] bindings, double[] stack) {
+        checkArguments(bindings.length, stack.length);
+        int sp = 0;
+        for (int instruction : code) {
+            switch (instruction & 0xFF) {
+                case OP_CONST:
+                    stack[sp++] = doubleConstants[instruction >>> 8];
+                    break;
+                case OP_VAR:
+                    stack[sp++] = bindings[instruction >>> 8];
+                    break;
+                case OP_ADD:
+                    sp--;
+                    stack[sp - 1] += stack[sp];
+                    break;
+                case OP_SUB:
+                    sp--;
+                    stack[sp - 1] -= stack[sp];
+                    break;
+                case OP_MUL:
+                    sp--;
+                    stack[sp - 1] *= stack[sp];
+                    break;
+                case OP_DIV:
+                    sp--;
+                    stack[sp - 1] /= stack[sp];
+                    break;
+                case OP_NEG:
+                    stack[sp - 1] = -stack[sp - 1];
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown opcode " + (instruction & 0xFF));
+            }
+        }
+        return stack[0];
+    }
+
+    private void checkArguments(int bindingCount, int stackLength) {
+        if (bindingCount < variables.length) {
+            throw new IllegalArgumentException("Expected " + variables.length + " bindings " + Arrays.toString(variables)
+                    + " but got " + bindingCount);
+        }
+        if (stackLength < maxStackDepth) {
+            throw new IllegalArgumentException("Stack needs at least " + maxStackDepth + " slots");
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int instruction : code) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            int operand = instruction >>> 8;
+            switch (instruction & 0xFF) {
+                case OP_CONST:
+                    if (integral) {
+                        sb.append(constants[operand]);
+                    } else {
+                        sb.append(doubleConstants[operand]);
+                    }
+                    break;
+                case OP_VAR:
+                    sb.append(variables[operand]);
+                    break;
+                case OP_ADD:
+                    sb.append('+');
+                    break;
+                case OP_SUB:
+                    sb.append('-');
+                    break;
+                case OP_MUL:
+                    sb.append('*');
+                    break;
+                case OP_DIV:
+                    sb.append('/');
+                    break;
+                case OP_NEG:
+                    sb.append("neg");
+                    break;
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,58 @@
+package org.sri.bodmas;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of compiled expressions keyed by their source text,
+ * so hot formulas are parsed once and then only evaluated.
+ */
+public class ExpressionCache {
+
+    private final int maxEntries;
+    private final Map<String, CompiledExpression> entries;
+    private long hits;
+    private long misses;
+
+    public ExpressionCache(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        // access order turns the LinkedHashMap into an LRU list
+        this.entries = new LinkedHashMap<String, CompiledExpression>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompiledExpression> eldest) {
+                return size() > ExpressionCache.this.maxEntries;
+            }
+        };
+    }
+
+    public synchronized CompiledExpression compile(String source) {
+        CompiledExpression compiled = entries.get(source);
+        if (compiled != null) {
+            hits++;
+            return compiled;
+        }
+        misses++;
+        compiled = ExpressionCompiler.compile(source);
+        entries.put(source, compiled);
+        return compiled;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+}
@@ -0,0 +1,90 @@
+package org.sri.bodmas;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.sri.bodmas.CompiledExpression.*;
+
+// Emits opcodes straight into the program instead of building token lists
+final class ExpressionCompiler extends ExpressionParser {
+
+    private int[] code = new int[16];
+    private int codeLength;
+    private long[] constants = new long[8];
+    private double[] doubleConstants = new double[8];
+    private int constantCount;
+    private boolean integral = true;
+    private final List<String> variables = new ArrayList<>();
+
+    private int depth;
+    private int maxDepth;
+
+    private ExpressionCompiler() {
+    }
+
+    static CompiledExpression compile(String source) {
+        if (source == null) {
+            throw new IllegalArgumentException("Expression must not be null");
+        }
+        ExpressionLexer lexer = new ExpressionLexer(source);
+        ExpressionCompiler compiler = new ExpressionCompiler();
+        if (!compiler.parseExpression(lexer)) {
+            throw new IllegalArgumentException("Empty expression \"" + source + "\"");
+        }
+        while (lexer.kind() != ExpressionLexer.EOF) {
+            if (lexer.next() != ExpressionLexer.SEPARATOR && lexer.kind() != ExpressionLexer.EOF) {
+                throw error("Only one expression can be compiled", lexer);
+            }
+        }
+        return compiler.build(source);
+    }
+
+    private CompiledExpression build(String source) {
+        return new CompiledExpression(source, Arrays.copyOf(code, codeLength), Arrays.copyOf(constants, constantCount),
+                Arrays.copyOf(doubleConstants, constantCount), integral, variables.toArray(new String[0]), maxDepth);
+    }
+
+    @Override
+    void number(ExpressionLexer lexer) {
+        if (constantCount == constants.length) {
+            constants = Arrays.copyOf(constants, constantCount * 2);
+            doubleConstants = Arrays.copyOf(doubleConstants, constantCount * 2);
+        }
+        constants[constantCount] = lexer.longValue();
+        doubleConstants[constantCount] = lexer.doubleValue();
+        integral &= !lexer.isDecimal();
+        emit(OP_CONST | (constantCount++ << 8));
+    }
+
+    @Override
+    void variable(ExpressionLexer lexer) {
+        String name = lexer.tokenText();
+        int slot = variables.indexOf(name);
+        if (slot < 0) {
+            slot = variables.size();
+            variables.add(name);
+        }
+        emit(OP_VAR | (slot << 8));
+    }
+
+    @Override
+    void operator(int opcode) {
+        emit(opcode);
+    }
+
+    private void emit(int instruction) {
+        if (codeLength == code.length) {
+            code = Arrays.copyOf(code, codeLength * 2);
+        }
+        code[codeLength++] = instruction;
+
+        int op = instruction & 0xFF;
+        if (op == OP_CONST || op == OP_VAR) {
+            depth++;
+            maxDepth = Math.max(maxDepth, depth);
+        } else if (op != OP_NEG) {
+            depth--;
+        }
+    }
+}
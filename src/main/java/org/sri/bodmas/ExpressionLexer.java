@@ -0,0 +1,218 @@
+package org.sri.bodmas;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Cursor style lexer over a CharSequence or an ASCII ByteBuffer.
+ * Each call to {@link #next()} returns a token kind and exposes the token's
+ * value through primitive accessors, so no String is created per token.
+ * A newline or ';' ends an expression, which lets one lexer walk a whole
+ * batch file of formulas.
+ */
+public final class ExpressionLexer {
+
+    public static final int EOF = 0;
+    public static final int NUMBER = 1;
+    public static final int IDENTIFIER = 2;
+    public static final int PLUS = 3;
+    public static final int MINUS = 4;
+    public static final int NEGATE = 5; // a '-' in operand position
+    public static final int STAR = 6;
+    public static final int SLASH = 7;
+    public static final int LEFT_PAREN = 8;
+    public static final int RIGHT_PAREN = 9;
+    public static final int SEPARATOR = 10;
+
+    private static final double[] POWERS_OF_TEN = new double[23]; // 10^22 is the largest exact double power
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private CharSequence chars;
+    private ByteBuffer bytes;
+    private int position;
+    private int limit;
+
+    private int kind = SEPARATOR;
+    private int tokenStart;
+    private int tokenEnd;
+    private long longValue;
+    private double doubleValue;
+    private boolean decimal;
+
+    // Empty until reset
+    public ExpressionLexer() {
+        reset("");
+    }
+
+    public ExpressionLexer(CharSequence chars) {
+        reset(chars);
+    }
+
+    public ExpressionLexer(ByteBuffer bytes) {
+        reset(bytes);
+    }
+
+    // Reuse this lexer for new input instead of allocating another one
+    public ExpressionLexer reset(CharSequence chars) {
+        this.chars = chars;
+        this.bytes = null;
+        this.position = 0;
+        this.limit = chars.length();
+        this.kind = SEPARATOR;
+        return this;
+    }
+
+    // Reads from the buffer's position to its limit without moving them
+    public ExpressionLexer reset(ByteBuffer bytes) {
+        this.bytes = bytes;
+        this.chars = null;
+        this.position = bytes.position();
+        this.limit = bytes.limit();
+        this.kind = SEPARATOR;
+        return this;
+    }
+
+    private char charAt(int index) {
+        return bytes != null ? (char) (bytes.get(index) & 0xFF) : chars.charAt(index);
+    }
+
+    public int next() {
+        int previous = kind;
+        while (position < limit) {
+            char c = charAt(position);
+            if (c == ' ' || c == '\t' || c == '\r') {
+                position++;
+                continue;
+            }
+            tokenStart = position;
+            if ((c >= '0' && c <= '9') || c == '.') {
+                return kind = readNumber();
+            }
+            if (isIdentifierStart(c)) {
+                position++;
+                while (position < limit && isIdentifierPart(charAt(position))) {
+                    position++;
+                }
+                tokenEnd = position;
+                return kind = IDENTIFIER;
+            }
+            position++;
+            tokenEnd = position;
+            switch (c) {
+                case '+':
+                    return kind = PLUS;
+                case '-':
+                    return kind = operandExpected(previous) ? NEGATE : MINUS;
+                case '*':
+                    return kind = STAR;
+                case '/':
+                    return kind = SLASH;
+                case '(':
+                    return kind = LEFT_PAREN;
+                case ')':
+                    return kind = RIGHT_PAREN;
+                case '\n':
+                case ';':
+                    return kind = SEPARATOR;
+                default:
+                    throw new IllegalArgumentException("Unexpected character '" + c + "' at position " + tokenStart);
+            }
+        }
+        tokenStart = tokenEnd = position;
+        return kind = EOF;
+    }
+
+    private int readNumber() {
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean seenPoint = false;
+        while (position < limit) {
+            char c = charAt(position);
+            if (c >= '0' && c <= '9') {
+                digits++;
+                int digit = c - '0';
+                if (mantissa <= (Long.MAX_VALUE - digit) / 10) {
+                    mantissa = mantissa * 10 + digit;
+                    if (seenPoint) {
+                        scale++;
+                    }
+                } else if (!seenPoint) {
+                    throw new IllegalArgumentException("Number out of range at position " + tokenStart);
+                }
+                // fraction digits past a full long mantissa are below double precision, drop them
+            } else if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                break;
+            }
+            position++;
+        }
+        tokenEnd = position;
+        if (digits == 0) {
+            throw new IllegalArgumentException("Malformed number at position " + tokenStart);
+        }
+        decimal = seenPoint;
+        doubleValue = mantissa / (scale < POWERS_OF_TEN.length ? POWERS_OF_TEN[scale] : Math.pow(10, scale));
+        longValue = decimal ? (long) doubleValue : mantissa;
+        return NUMBER;
+    }
+
+    private static boolean operandExpected(int previous) {
+        return previous != NUMBER && previous != IDENTIFIER && previous != RIGHT_PAREN;
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return isIdentifierStart(c) || (c >= '0' && c <= '9');
+    }
+
+    public int kind() {
+        return kind;
+    }
+
+    public boolean hasRemaining() {
+        return position < limit;
+    }
+
+    public int tokenStart() {
+        return tokenStart;
+    }
+
+    public int tokenEnd() {
+        return tokenEnd;
+    }
+
+    // Value of the current NUMBER token, decimals are truncated
+    public long longValue() {
+        return longValue;
+    }
+
+    public double doubleValue() {
+        return doubleValue;
+    }
+
+    public boolean isDecimal() {
+        return decimal;
+    }
+
+    // Only allocates when asked, e.g. when compiling a variable name
+    public String tokenText() {
+        if (bytes == null) {
+            return chars.subSequence(tokenStart, tokenEnd).toString();
+        }
+        char[] text = new char[tokenEnd - tokenStart];
+        for (int i = 0; i < text.length; i++) {
+            text[i] = charAt(tokenStart + i);
+        }
+        return new String(text);
+    }
+}
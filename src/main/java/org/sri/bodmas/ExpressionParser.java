@@ -0,0 +1,143 @@
+package org.sri.bodmas;
+
+import java.util.Arrays;
+
+import static org.sri.bodmas.CompiledExpression.*;
+
+// Shunting-yard over the lexer's token stream; subclasses decide what "emitting" an operand or operator means
+abstract class ExpressionParser {
+
+    private static final int LEFT_PAREN_MARKER = -1;
+
+    private int[] operators = new int[16];
+    private int operatorCount;
+
+    // Parses one expression up to a separator or the end of input, returns false if nothing was left to parse
+    final boolean parseExpression(ExpressionLexer lexer) {
+        operatorCount = 0;
+        boolean expectOperand = true;
+        boolean empty = true;
+
+        while (true) {
+            int kind = lexer.next();
+            if (kind == ExpressionLexer.EOF || kind == ExpressionLexer.SEPARATOR) {
+                if (!empty) {
+                    break;
+                }
+                if (kind == ExpressionLexer.EOF) {
+                    return false;
+                }
+                continue; // skip blank lines
+            }
+            empty = false;
+
+            switch (kind) {
+                case ExpressionLexer.NUMBER:
+                case ExpressionLexer.IDENTIFIER:
+                    if (!expectOperand) {
+                        throw error("Unexpected operand", lexer);
+                    }
+                    if (kind == ExpressionLexer.NUMBER) {
+                        number(lexer);
+                    } else {
+                        variable(lexer);
+                    }
+                    expectOperand = false;
+                    break;
+                case ExpressionLexer.LEFT_PAREN:
+                    if (!expectOperand) {
+                        throw error("Unexpected '('", lexer);
+                    }
+                    push(LEFT_PAREN_MARKER);
+                    break;
+                case ExpressionLexer.RIGHT_PAREN:
+                    if (expectOperand) {
+                        throw error("Unexpected ')'", lexer);
+                    }
+                    while (operatorCount > 0 && operators[operatorCount - 1] != LEFT_PAREN_MARKER) {
+                        operator(operators[--operatorCount]);
+                    }
+                    if (operatorCount == 0) {
+                        throw error("Unbalanced ')'", lexer);
+                    }
+                    operatorCount--; // Discard the left parenthesis
+                    break;
+                case ExpressionLexer.NEGATE:
+                    push(OP_NEG); // unary minus binds tighter than any binary operator
+                    break;
+                default:
+                    if (expectOperand) {
+                        throw error("Missing operand", lexer);
+                    }
+                    binaryOperator(toOpcode(kind));
+                    expectOperand = true;
+            }
+        }
+
+        if (expectOperand) {
+            throw error("Expression ends without an operand", lexer);
+        }
+        while (operatorCount > 0) {
+            int op = operators[--operatorCount];
+            if (op == LEFT_PAREN_MARKER) {
+                throw error("Unbalanced '('", lexer);
+            }
+            operator(op);
+        }
+        return true;
+    }
+
+    abstract void number(ExpressionLexer lexer);
+
+    abstract void variable(ExpressionLexer lexer);
+
+    abstract void operator(int opcode);
+
+    private void binaryOperator(int op) {
+        // Left associative: pop everything that binds at least as tightly
+        while (operatorCount > 0 && operators[operatorCount - 1] != LEFT_PAREN_MARKER
+                && precedence(operators[operatorCount - 1]) >= precedence(op)) {
+            operator(operators[--operatorCount]);
+        }
+        push(op);
+    }
+
+    private static int toOpcode(int kind) {
+        switch (kind) {
+            case ExpressionLexer.PLUS:
+                return OP_ADD;
+            case ExpressionLexer.MINUS:
+                return OP_SUB;
+            case ExpressionLexer.STAR:
+                return OP_MUL;
+            case ExpressionLexer.SLASH:
+                return OP_DIV;
+            default:
+                throw new IllegalStateException("Not an operator token: " + kind);
+        }
+    }
+
+    private static int precedence(int op) {
+        switch (op) {
+            case OP_ADD:
+            case OP_SUB:
+                return 1;
+            case OP_MUL:
+            case OP_DIV:
+                return 2;
+            default:
+                return 3;
+        }
+    }
+
+    private void push(int op) {
+        if (operatorCount == operators.length) {
+            operators = Arrays.copyOf(operators, operatorCount * 2);
+        }
+        operators[operatorCount++] = op;
+    }
+
+    static IllegalArgumentException error(String message, ExpressionLexer lexer) {
+        return new IllegalArgumentException(message + " at position " + lexer.tokenStart());
+    }
+}
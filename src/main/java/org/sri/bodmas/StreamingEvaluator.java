@@ -0,0 +1,129 @@
+package org.sri.bodmas;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.sri.bodmas.CompiledExpression.*;
+
+/**
+ * Evaluates expressions directly from an {@link ExpressionLexer} using primitive
+ * operand stacks. Integer operands use long arithmetic (integer division like the
+ * token based path) and an expression switches to double arithmetic once a decimal
+ * operand is involved. Reuse one instance per thread: after warm up it does not allocate.
+ * Either pass a lexer to {@link #evaluateNext(ExpressionLexer)}, or point the evaluator's own
+ * lexer at new input with reset and call {@link #evaluateNext()}.
+ */
+public final class StreamingEvaluator extends ExpressionParser {
+
+    private final ExpressionLexer lexer = new ExpressionLexer();
+    private long[] longs = new long[16];
+    private double[] doubles = new double[16];
+    private boolean[] decimal = new boolean[16];
+    private int sp;
+
+    private long longResult;
+    private double doubleResult;
+    private boolean decimalResult;
+
+    // Points the built-in lexer at new input
+    public StreamingEvaluator reset(CharSequence chars) {
+        lexer.reset(chars);
+        return this;
+    }
+
+    public StreamingEvaluator reset(ByteBuffer bytes) {
+        lexer.reset(bytes);
+        return this;
+    }
+
+    // Evaluates the next expression of the input given to reset
+    public boolean evaluateNext() {
+        return evaluateNext(lexer);
+    }
+
+    // Evaluates the next expression of the input, returns false once the input is exhausted
+    public boolean evaluateNext(ExpressionLexer lexer) {
+        sp = 0;
+        if (!parseExpression(lexer)) {
+            return false;
+        }
+        decimalResult = decimal[0];
+        doubleResult = decimalResult ? doubles[0] : longs[0];
+        longResult = decimalResult ? (long) doubles[0] : longs[0];
+        return true;
+    }
+
+    public long longResult() {
+        return longResult;
+    }
+
+    public double doubleResult() {
+        return doubleResult;
+    }
+
+    public boolean isDecimalResult() {
+        return decimalResult;
+    }
+
+    @Override
+    void number(ExpressionLexer lexer) {
+        if (sp == longs.length) {
+            longs = Arrays.copyOf(longs, sp * 2);
+            doubles = Arrays.copyOf(doubles, sp * 2);
+            decimal = Arrays.copyOf(decimal, sp * 2);
+        }
+        longs[sp] = lexer.longValue();
+        doubles[sp] = lexer.doubleValue();
+        decimal[sp] = lexer.isDecimal();
+        sp++;
+    }
+
+    @Override
+    void variable(ExpressionLexer lexer) {
+        throw error("Variables need a compiled expression", lexer);
+    }
+
+    @Override
+    void operator(int opcode) {
+        if (opcode == OP_NEG) {
+            longs[sp - 1] = -longs[sp - 1];
+            doubles[sp - 1] = -doubles[sp - 1];
+            return;
+        }
+        sp--;
+        int a = sp - 1;
+        int b = sp;
+        if (decimal[a] || decimal[b]) {
+            double x = decimal[a] ? doubles[a] : longs[a];
+            double y = decimal[b] ? doubles[b] : longs[b];
+            switch (opcode) {
+                case OP_ADD:
+                    doubles[a] = x + y;
+                    break;
+                case OP_SUB:
+                    doubles[a] = x - y;
+                    break;
+                case OP_MUL:
+                    doubles[a] = x * y;
+                    break;
+                default:
+                    doubles[a] = x / y;
+            }
+            decimal[a] = true;
+        } else {
+            switch (opcode) {
+                case OP_ADD:
+                    longs[a] += longs[b];
+                    break;
+                case OP_SUB:
+                    longs[a] -= longs[b];
+                    break;
+                case OP_MUL:
+                    longs[a] *= longs[b];
+                    break;
+                default:
+                    longs[a] /= longs[b];
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.sri.collections;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Random;
+
+// Boxed HashMap<Integer,Integer> vs IntIntHashMap, run with: java -Xmx4g org.sri.collections.IntIntHashMapBenchmark [elements]
+public class IntIntHashMapBenchmark {
+
+    public static void main(String[] args) {
+        int elements = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        Random random = new Random(9);
+        int[] keys = new int[elements];
+        for (int i = 0; i < elements; i++) {
+            keys[i] = random.nextInt();
+        }
+
+        for (int round = 0; round < 3; round++) {
+            System.out.println("round " + round + ", " + elements + " elements");
+
+            long allocated = allocatedBytes();
+            long start = System.nanoTime();
+            HashMap<Integer, Integer> boxed = new HashMap<>();
+            for (int i = 0; i < elements; i++) {
+                boxed.put(keys[i], i);
+            }
+            long check = 0;
+            for (int i = 0; i < elements; i++) {
+                if (boxed.containsKey(keys[i] ^ 1)) {
+                    check += boxed.get(keys[i] ^ 1);
+                }
+            }
+            report("HashMap<Integer,Integer>", start, allocated, elements, check);
+            boxed = null;
+
+            allocated = allocatedBytes();
+            start = System.nanoTime();
+            IntIntHashMap primitive = new IntIntHashMap();
+            for (int i = 0; i < elements; i++) {
+                primitive.put(keys[i], i);
+            }
+            check = 0;
+            for (int i = 0; i < elements; i++) {
+                int value = primitive.getOrDefault(keys[i] ^ 1, -1);
+                if (value >= 0) {
+                    check += value;
+                }
+            }
+            report("IntIntHashMap", start, allocated, elements, check);
+        }
+    }
+
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    private static void report(String name, long startNanos, long allocatedBefore, int elements, long check) {
+        long elapsed = System.nanoTime() - startNanos;
+        long allocated = allocatedBytes() - allocatedBefore;
+        System.out.printf("  %-26s %8.1f ns/op  %8.1f bytes/entry allocated  (checksum %d)%n",
+                name, (double) elapsed / (2L * elements), (double) allocated / elements, check);
+    }
+}
@@ -0,0 +1,304 @@
+package org.sri.linkedlist;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Playlist with a title -> songs index, so removal and lookup by title are O(1) on average
+ * instead of a scan over every {@link Song}. Duplicate titles are allowed; removeSong and
+ * moveSong act on the earliest added song with the title.
+ *
+ * In concurrent mode edits are serialized by a lock and stay O(1) apart from the walk to a
+ * position. size, countSongs and containsSong read a volatile size and a concurrent map of
+ * title counts that edits keep current, so they never take the lock. An immutable
+ * {@link Snapshot} for display and iteration is copied on demand: the first snapshot() after an
+ * edit rebuilds it under the lock, later calls return it without locking until the next edit.
+ */
+public class IndexedPlaylist {
+
+    private Song head;
+    private Song tail;
+    private volatile int size; // written under the lock, read without it
+    private final Map<String, LinkedHashSet<Song>> byTitle = new HashMap<>();
+
+    private final ReentrantLock lock; // null when not concurrent
+    private final ConcurrentHashMap<String, Integer> counts; // lock-free title counts, null when not concurrent
+    private volatile long version; // bumped by every edit
+    private volatile Snapshot snapshot = new Snapshot(0, new String[0], new String[0], Collections.emptyMap());
+
+    public IndexedPlaylist() {
+        this(false);
+    }
+
+    public IndexedPlaylist(boolean concurrent) {
+        this.lock = concurrent ? new ReentrantLock() : null;
+        this.counts = concurrent ? new ConcurrentHashMap<>() : null;
+    }
+
+    public void addSong(String title, String artist) {
+        lock();
+        try {
+            Song song = newSong(title, artist);
+            linkBefore(song, null);
+        } finally {
+            unlock();
+        }
+    }
+
+    // Inserts at position 0..size, shifting later songs back
+    public void insertSong(int position, String title, String artist) {
+        lock();
+        try {
+            checkPosition(position);
+            Song song = newSong(title, artist);
+            linkBefore(song, songAt(position));
+        } finally {
+            unlock();
+        }
+    }
+
+    public boolean removeSong(String title) {
+        lock();
+        try {
+            Song song = first(title);
+            if (song == null) {
+                return false; // Song not found
+            }
+            unlink(song);
+            LinkedHashSet<Song> songs = byTitle.get(title);
+            songs.remove(song);
+            if (songs.isEmpty()) {
+                byTitle.remove(title);
+            }
+            if (counts != null) {
+                counts.computeIfPresent(title, (t, count) -> count == 1 ? null : count - 1);
+            }
+            return true;
+        } finally {
+            unlock();
+        }
+    }
+
+    // Moves the song so that it ends up at position 0..size-1
+    public boolean moveSong(String title, int position) {
+        lock();
+        try {
+            Song song = first(title);
+            if (song == null) {
+                return false;
+            }
+            if (position < 0 || position >= size) {
+                throw new IndexOutOfBoundsException("position " + position + ", size " + size);
+            }
+            unlink(song);
+            linkBefore(song, songAt(position));
+            return true;
+        } finally {
+            unlock();
+        }
+    }
+
+    public boolean containsSong(String title) {
+        return countSongs(title) > 0;
+    }
+
+    public int countSongs(String title) {
+        if (counts != null) {
+            Integer count = counts.get(title);
+            return count == null ? 0 : count;
+        }
+        LinkedHashSet<Song> songs = byTitle.get(title);
+        return songs == null ? 0 : songs.size();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Immutable view of the playlist as of the last completed edit
+    public Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current.version == version) {
+            return current;
+        }
+        lock();
+        try {
+            current = snapshot;
+            return current.version == version ? current : rebuild(); // another reader may have rebuilt it
+        } finally {
+            unlock();
+        }
+    }
+
+    public void displayPlaylist() {
+        Snapshot current = snapshot();
+        for (int i = 0; i < current.size(); i++) {
+            System.out.println(current.getTitle(i) + " by " + current.getArtist(i));
+        }
+    }
+
+    private Snapshot rebuild() {
+        String[] titles = new String[size];
+        String[] artists = new String[size];
+        int i = 0;
+        for (Song current = head; current != null; current = current.next) {
+            titles[i] = current.title;
+            artists[i++] = current.artist;
+        }
+        Map<String, Integer> titleCounts = new HashMap<>();
+        for (Map.Entry<String, LinkedHashSet<Song>> entry : byTitle.entrySet()) {
+            titleCounts.put(entry.getKey(), entry.getValue().size());
+        }
+        Snapshot rebuilt = new Snapshot(version, titles, artists, titleCounts);
+        snapshot = rebuilt;
+        return rebuilt;
+    }
+
+    private Song newSong(String title, String artist) {
+        if (title == null) {
+            throw new IllegalArgumentException("title must not be null");
+        }
+        Song song = new Song(title, artist);
+        byTitle.computeIfAbsent(title, t -> new LinkedHashSet<>()).add(song);
+        if (counts != null) {
+            counts.merge(title, 1, Integer::sum);
+        }
+        return song;
+    }
+
+    private Song first(String title) {
+        LinkedHashSet<Song> songs = byTitle.get(title);
+        return songs == null ? null : songs.iterator().next();
+    }
+
+    // Walks from whichever end is closer
+    private Song songAt(int position) {
+        if (position == size) {
+            return null;
+        }
+        if (position < size / 2) {
+            Song current = head;
+            for (int i = 0; i < position; i++) {
+                current = current.next;
+            }
+            return current;
+        }
+        Song current = tail;
+        for (int i = size - 1; i > position; i--) {
+            current = current.prev;
+        }
+        return current;
+    }
+
+    // Links song in front of next, or at the tail when next is null
+    private void linkBefore(Song song, Song next) {
+        Song prev = next == null ? tail : next.prev;
+        song.prev = prev;
+        song.next = next;
+        if (prev == null) {
+            head = song;
+        } else {
+            prev.next = song;
+        }
+        if (next == null) {
+            tail = song;
+        } else {
+            next.prev = song;
+        }
+        size++;
+        version++;
+    }
+
+    private void unlink(Song song) {
+        if (song.prev != null) {
+            song.prev.next = song.next;
+        } else {
+            head = song.next; // Removing head
+        }
+        if (song.next != null) {
+            song.next.prev = song.prev;
+        } else {
+            tail = song.prev; // Removing tail
+        }
+        song.next = null;
+        song.prev = null;
+        size--;
+        version++;
+    }
+
+    private void checkPosition(int position) {
+        if (position < 0 || position > size) {
+            throw new IndexOutOfBoundsException("position " + position + ", size " + size);
+        }
+    }
+
+    private void lock() {
+        if (lock != null) {
+            lock.lock();
+        }
+    }
+
+    private void unlock() {
+        if (lock != null) {
+            lock.unlock();
+        }
+    }
+
+    public static final class Snapshot implements Iterable<String> {
+        private final long version; // playlist version it was copied at
+        private final String[] titles;
+        private final String[] artists;
+        private final Map<String, Integer> counts;
+
+        private Snapshot(long version, String[] titles, String[] artists, Map<String, Integer> counts) {
+            this.version = version;
+            this.titles = titles;
+            this.artists = artists;
+            this.counts = counts;
+        }
+
+        public int size() {
+            return titles.length;
+        }
+
+        public int countSongs(String title) {
+            Integer count = counts.get(title);
+            return count == null ? 0 : count;
+        }
+
+        public String getTitle(int index) {
+            return titles[index];
+        }
+
+        public String getArtist(int index) {
+            return artists[index];
+        }
+
+        // Iterates titles in playlist order
+        @Override
+        public Iterator<String> iterator() {
+            return Arrays.asList(titles).iterator();
+        }
+    }
+
+    public static void main(String[] args) {
+        IndexedPlaylist playlist = new IndexedPlaylist(true);
+        playlist.addSong("Imagine", "John Lennon");
+        playlist.addSong("Bohemian Rhapsody", "Queen");
+        playlist.addSong("ID", "Thunder");
+        playlist.insertSong(1, "Imagine", "A Perfect Circle");
+
+        playlist.moveSong("ID", 0);
+        playlist.removeSong("Imagine"); // the John Lennon one, added first
+        playlist.displayPlaylist();
+        // ID by Thunder
+        // Imagine by A Perfect Circle
+        // Bohemian Rhapsody by Queen
+    }
+}
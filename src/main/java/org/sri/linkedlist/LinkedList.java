@@ -1,58 +1,153 @@
 package org.sri.linkedlist;
 
+import org.sri.collections.IntIntHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Linked list of ints with a tail pointer and size counter, so appends are O(1).
+ * An optional value index (see {@link #LinkedList(boolean)}) makes updateDate and
+ * deleteNode O(1) on average instead of a linear scan.
+ *
+ * Duplicates: update and delete act on the first node with the value in list order, with or
+ * without the index. Each node carries an order key that grows along the list as first built,
+ * and each value's chain is kept sorted by it; reverse() only flips which end of a chain comes
+ * first. Appends and deletes stay O(1); updateDate walks the new value's chain from its end
+ * to place the node, so it costs O(duplicates of newData) at worst.
+ */
 public class LinkedList {
     private Node head;
+    private Node tail;
+    private int size;
+
+    // value index: value -> slot in chains, each chain links every node with that value
+    private final IntIntHashMap chainSlots;
+    private Node[] chains;
+    private int[] freeSlots;
+    private int freeCount;
+    private int slotsUsed;
 
-    private class Node {
+    // order keys: nodes appended at the original tail count up, after an odd number of reverses they count down
+    private long nextBackOrder;
+    private long nextFrontOrder = -1;
+    private boolean reversed;
+
+    private static class Node {
         int data;
         Node next;
+        Node prev;
+        Node nextSame;  // next node with the same value, indexed lists only
+        Node prevSame;  // previous node with the same value, the chain head points at the chain tail
+        long order;     // position key, increasing along the list in its original direction
 
         Node(int data) {
             this.data = data;
-            this.next = null;
         }
     }
 
+    public LinkedList() {
+        this(false);
+    }
+
+    public LinkedList(boolean indexed) {
+        if (indexed) {
+            chainSlots = new IntIntHashMap();
+            chains = new Node[16];
+            freeSlots = new int[16];
+        } else {
+            chainSlots = null;
+        }
+    }
+
+    public boolean isIndexed() {
+        return chainSlots != null;
+    }
+
+    public int size() {
+        return size;
+    }
+
     public void add(int data) {
         Node newNode = new Node(data);
         if (head == null) {
             head = newNode;
         } else {
-            Node current = head;
-            while (current.next != null) {
-                current = current.next;
-            }
-            current.next = newNode;
+            tail.next = newNode;
+            newNode.prev = tail;
+        }
+        tail = newNode;
+        size++;
+        appended(newNode);
+    }
+
+    // Appends all values, linking them as one chain before attaching it to the tail
+    public void addAll(int[] values) {
+        if (values == null) {
+            throw new IllegalArgumentException("values must not be null");
+        }
+        if (values.length == 0) {
+            return;
+        }
+        Node first = new Node(values[0]);
+        Node last = first;
+        appended(first);
+        for (int i = 1; i < values.length; i++) {
+            Node node = new Node(values[i]);
+            last.next = node;
+            node.prev = last;
+            last = node;
+            appended(node);
+        }
+        if (head == null) {
+            head = first;
+        } else {
+            tail.next = first;
+            first.prev = tail;
         }
+        tail = last;
+        size += values.length;
+    }
+
+    public boolean contains(int data) {
+        return find(data) != null;
     }
 
     public void updateDate(int oldData, int newData) {
-        Node current = head;
-        while (current != null) {
-            if (current.data == oldData) {
-                current.data = newData;
-                return;
-            }
-            current = current.next;
+        Node node = find(oldData);
+        if (node == null || oldData == newData) {
+            return;
         }
+        unindex(node);
+        node.data = newData;
+        index(node);
     }
 
     public void deleteNode(int data) {
-        if (head == null) {
+        Node node = find(data);
+        if (node == null) {
             return;
         }
-        if (head.data == data) {
-            head = head.next;
-            return;
+        unindex(node);
+        if (node.prev == null) {
+            head = node.next;
+        } else {
+            node.prev.next = node.next;
         }
-        Node current = head;
-        while (current.next != null) {
-            if (current.next.data == data) {
-                current.next = current.next.next;
-                return;
-            }
-            current = current.next;
+        if (node.next == null) {
+            tail = node.prev;
+        } else {
+            node.next.prev = node.prev;
         }
+        size--;
+    }
+
+    public int[] toArray() {
+        int[] values = new int[size];
+        int i = 0;
+        for (Node current = head; current != null; current = current.next) {
+            values[i++] = current.data;
+        }
+        return values;
     }
 
     public void display() {
@@ -64,18 +159,124 @@ public class LinkedList {
         System.out.println();
     }
 
+    // Nodes keep their identity, so the value index stays valid without a rebuild
     public void reverse() {
-        Node prev = null;
         Node current = head;
-        Node next;
         while (current != null) {
-            next = current.next;
-            current.next = prev;
-            prev = current;
+            Node next = current.next;
+            current.next = current.prev;
+            current.prev = next;
             current = next;
         }
-        head = prev;
+        Node oldHead = head;
+        head = tail;
+        tail = oldHead;
+        reversed = !reversed; // chains stay sorted by order, the other end is now first in the list
+    }
 
+    private Node find(int data) {
+        if (chainSlots != null) {
+            int slot = chainSlots.getOrDefault(data, -1);
+            if (slot < 0) {
+                return null;
+            }
+            return reversed ? chains[slot].prevSame : chains[slot];
+        }
+        for (Node current = head; current != null; current = current.next) {
+            if (current.data == data) {
+                return current;
+            }
+        }
+        return null;
+    }
+
+    // A node just linked at the tail is past every other node in list order
+    private void appended(Node node) {
+        if (chainSlots == null) {
+            return;
+        }
+        node.order = reversed ? nextFrontOrder-- : nextBackOrder++;
+        index(node);
+    }
+
+    // Links the node into its value's chain, keeping the chain sorted by order
+    private void index(Node node) {
+        if (chainSlots == null) {
+            return;
+        }
+        int slot = chainSlots.getOrDefault(node.data, -1);
+        if (slot < 0) {
+            slot = allocateSlot();
+            chains[slot] = node;
+            node.prevSame = node;
+            chainSlots.put(node.data, slot);
+            return;
+        }
+        Node first = chains[slot];
+        Node last = first.prevSame;
+        if (node.order > last.order) {
+            last.nextSame = node;
+            node.prevSame = last;
+            first.prevSame = node;
+        } else if (node.order < first.order) {
+            node.nextSame = first;
+            node.prevSame = last;
+            first.prevSame = node;
+            chains[slot] = node;
+        } else {
+            // only updateDate lands here: walk back to the first chain node after this one
+            Node after = last;
+            while (after.prevSame.order > node.order) {
+                after = after.prevSame;
+            }
+            node.prevSame = after.prevSame;
+            node.nextSame = after;
+            after.prevSame.nextSame = node;
+            after.prevSame = node;
+        }
     }
-}
 
+    private void unindex(Node node) {
+        if (chainSlots == null) {
+            return;
+        }
+        int slot = chainSlots.getOrDefault(node.data, -1);
+        Node first = chains[slot];
+        if (node == first) {
+            if (node.nextSame == null) {
+                chains[slot] = null;
+                chainSlots.remove(node.data);
+                releaseSlot(slot);
+            } else {
+                node.nextSame.prevSame = node.prevSame;
+                chains[slot] = node.nextSame;
+            }
+        } else {
+            node.prevSame.nextSame = node.nextSame;
+            if (node.nextSame == null) {
+                first.prevSame = node.prevSame;
+            } else {
+                node.nextSame.prevSame = node.prevSame;
+            }
+        }
+        node.nextSame = null;
+        node.prevSame = null;
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (slotsUsed == chains.length) {
+            chains = Arrays.copyOf(chains, chains.length * 2);
+        }
+        return slotsUsed++;
+    }
+
+    private void releaseSlot(int slot) {
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+}
@@ -0,0 +1,62 @@
+package org.sri.linkedlist;
+
+import java.util.Random;
+
+// Bulk loading and delete-by-value costs, run with: java -Xmx6g org.sri.linkedlist.LinkedListBenchmark [elements]
+public class LinkedListBenchmark {
+
+    public static void main(String[] args) {
+        int elements = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        Random random = new Random(17);
+        int[] values = new int[elements];
+        for (int i = 0; i < elements; i++) {
+            values[i] = random.nextInt(elements); // roughly a third of the values are duplicates
+        }
+        int deletes = Math.min(elements, 1_000_000);
+
+        for (int round = 0; round < 3; round++) {
+            System.out.println("round " + round + ", " + elements + " elements");
+
+            long start = System.nanoTime();
+            LinkedList plain = new LinkedList();
+            for (int value : values) {
+                plain.add(value);
+            }
+            report("add, tail pointer", start, elements);
+
+            start = System.nanoTime();
+            plain = new LinkedList();
+            plain.addAll(values);
+            report("addAll", start, elements);
+            plain = null;
+
+            start = System.nanoTime();
+            LinkedList indexed = new LinkedList(true);
+            indexed.addAll(values);
+            report("addAll, indexed", start, elements);
+
+            start = System.nanoTime();
+            for (int i = 0; i < deletes; i++) {
+                indexed.deleteNode(values[i]);
+            }
+            report("deleteNode, indexed", start, deletes);
+
+            // a scan costs O(n) per delete, so only time a few of them
+            int scans = 100;
+            plain = new LinkedList();
+            plain.addAll(values);
+            start = System.nanoTime();
+            for (int i = 0; i < scans; i++) {
+                plain.deleteNode(values[elements - 1 - i]);
+            }
+            report("deleteNode, scan", start, scans);
+            System.out.println("  sizes " + indexed.size() + " / " + plain.size());
+        }
+    }
+
+    private static void report(String name, long startNanos, int operations) {
+        long elapsed = System.nanoTime() - startNanos;
+        System.out.printf("  %-22s %10.1f ns/op  (%d ms total)%n",
+                name, (double) elapsed / operations, elapsed / 1_000_000);
+    }
+}
@@ -1,17 +1,5 @@
 package org.sri.linkedlist;
 
-class Song {
-    String title;
-    String artist;
-    Song next;
-    Song prev;
-
-    public Song(String title, String artist) {
-        this.title = title;
-        this.artist = artist;
-    }
-}
-
 class Playlist {
     private Song head;
     private Song tail;
@@ -0,0 +1,13 @@
+package org.sri.linkedlist;
+
+class Song {
+    String title;
+    String artist;
+    Song next;
+    Song prev;
+
+    public Song(String title, String artist) {
+        this.title = title;
+        this.artist = artist;
+    }
+}
@@ -0,0 +1,309 @@
+package org.sri.linkedlist;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Unrolled linked list of ints: a doubly linked chain of blocks, each holding up to
+ * blockSize values in an int[]. Scans walk contiguous arrays instead of chasing one
+ * node per element, and storage is about 4 bytes per element plus one block per blockSize values.
+ * reverse() only flips a flag; every operation then works in the other direction.
+ * Same operations as {@link LinkedList}. Not thread-safe.
+ */
+public class UnrolledIntList implements Iterable<Integer> {
+
+    private static final int DEFAULT_BLOCK_SIZE = 64; // 256 bytes of values, four cache lines
+    // object header plus the fields of a Block, and the header of its int[], with compressed oops
+    private static final int BLOCK_OVERHEAD_BYTES = 24 + 16;
+
+    private final int blockSize;
+    private Block first;
+    private Block last;
+    private int size;
+    private int blocks;
+    private boolean reversed;
+    private int foundIndex; // position of the match in the block returned by locate
+
+    private static class Block {
+        final int[] values;
+        int count;
+        Block next;
+        Block prev;
+
+        Block(int capacity) {
+            values = new int[capacity];
+        }
+    }
+
+    public UnrolledIntList() {
+        this(DEFAULT_BLOCK_SIZE);
+    }
+
+    public UnrolledIntList(int blockSize) {
+        if (blockSize < 4) {
+            throw new IllegalArgumentException("blockSize must be at least 4: " + blockSize);
+        }
+        this.blockSize = blockSize;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Appends to the logical end, which is the physical front after an odd number of reverses
+    public void add(int data) {
+        if (reversed) {
+            addFirstPhysical(data);
+        } else {
+            addLastPhysical(data);
+        }
+        size++;
+    }
+
+    public void addAll(int[] values) {
+        if (values == null) {
+            throw new IllegalArgumentException("values must not be null");
+        }
+        if (reversed) {
+            for (int value : values) {
+                add(value);
+            }
+            return;
+        }
+        int i = 0;
+        while (i < values.length) {
+            if (last == null || last.count == blockSize) {
+                linkLast(new Block(blockSize));
+            }
+            int n = Math.min(blockSize - last.count, values.length - i);
+            System.arraycopy(values, i, last.values, last.count, n);
+            last.count += n;
+            i += n;
+        }
+        size += values.length;
+    }
+
+    public boolean contains(int data) {
+        return locate(data) != null;
+    }
+
+    public void updateDate(int oldData, int newData) {
+        Block block = locate(oldData);
+        if (block != null) {
+            block.values[foundIndex] = newData;
+        }
+    }
+
+    public void deleteNode(int data) {
+        Block block = locate(data);
+        if (block == null) {
+            return;
+        }
+        int index = foundIndex;
+        System.arraycopy(block.values, index + 1, block.values, index, block.count - index - 1);
+        block.count--;
+        size--;
+        if (block.count == 0) {
+            unlink(block);
+        } else if (block.count < blockSize / 4 && block.next != null && block.count + block.next.count <= blockSize) {
+            // keep blocks reasonably full so memory per element stays low
+            Block next = block.next;
+            System.arraycopy(next.values, 0, block.values, block.count, next.count);
+            block.count += next.count;
+            unlink(next);
+        }
+    }
+
+    public void reverse() {
+        reversed = !reversed;
+    }
+
+    public int[] toArray() {
+        int[] values = new int[size];
+        int i = 0;
+        for (PrimitiveIterator.OfInt it = iterator(); it.hasNext(); ) {
+            values[i++] = it.nextInt();
+        }
+        return values;
+    }
+
+    public void display() {
+        StringBuilder sb = new StringBuilder();
+        for (PrimitiveIterator.OfInt it = iterator(); it.hasNext(); ) {
+            sb.append(it.nextInt()).append(' ');
+        }
+        System.out.println(sb);
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return reversed ? new Backward() : new Forward();
+    }
+
+    // Approximate heap bytes used by this list, blocks and their arrays included
+    public long estimatedBytes() {
+        return (long) blocks * (BLOCK_OVERHEAD_BYTES + 4L * blockSize);
+    }
+
+    public double estimatedBytesPerElement() {
+        return size == 0 ? 0 : (double) estimatedBytes() / size;
+    }
+
+    // Finds the first occurrence in logical order
+    private Block locate(int data) {
+        if (!reversed) {
+            for (Block block = first; block != null; block = block.next) {
+                int[] values = block.values;
+                for (int i = 0; i < block.count; i++) {
+                    if (values[i] == data) {
+                        foundIndex = i;
+                        return block;
+                    }
+                }
+            }
+        } else {
+            for (Block block = last; block != null; block = block.prev) {
+                int[] values = block.values;
+                for (int i = block.count - 1; i >= 0; i--) {
+                    if (values[i] == data) {
+                        foundIndex = i;
+                        return block;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private void addLastPhysical(int data) {
+        if (last == null || last.count == blockSize) {
+            linkLast(new Block(blockSize));
+        }
+        last.values[last.count++] = data;
+    }
+
+    private void addFirstPhysical(int data) {
+        if (first == null || first.count == blockSize) {
+            Block block = new Block(blockSize);
+            block.next = first;
+            if (first == null) {
+                last = block;
+            } else {
+                first.prev = block;
+            }
+            first = block;
+            blocks++;
+        }
+        System.arraycopy(first.values, 0, first.values, 1, first.count);
+        first.values[0] = data;
+        first.count++;
+    }
+
+    private void linkLast(Block block) {
+        block.prev = last;
+        if (last == null) {
+            first = block;
+        } else {
+            last.next = block;
+        }
+        last = block;
+        blocks++;
+    }
+
+    private void unlink(Block block) {
+        if (block.prev == null) {
+            first = block.next;
+        } else {
+            block.prev.next = block.next;
+        }
+        if (block.next == null) {
+            last = block.prev;
+        } else {
+            block.next.prev = block.prev;
+        }
+        blocks--;
+    }
+
+    private final class Forward implements PrimitiveIterator.OfInt {
+        private Block block = first;
+        private int index;
+
+        @Override
+        public boolean hasNext() {
+            while (block != null && index == block.count) {
+                block = block.next;
+                index = 0;
+            }
+            return block != null;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return block.values[index++];
+        }
+    }
+
+    private final class Backward implements PrimitiveIterator.OfInt {
+        private Block block = last;
+        private int index = last == null ? -1 : last.count - 1;
+
+        @Override
+        public boolean hasNext() {
+            while (block != null && index < 0) {
+                block = block.prev;
+                index = block == null ? -1 : block.count - 1;
+            }
+            return block != null;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return block.values[index--];
+        }
+    }
+
+    // Compares measured heap use per element with LinkedList, run with: java -Xmx2g org.sri.linkedlist.UnrolledIntList [elements]
+    public static void main(String[] args) {
+        int elements = args.length > 0 ? Integer.parseInt(args[0]) : 4_000_000;
+        int[] values = new int[elements];
+        for (int i = 0; i < elements; i++) {
+            values[i] = i;
+        }
+
+        long before = usedHeap();
+        LinkedList nodes = new LinkedList();
+        nodes.addAll(values);
+        long nodeBytes = usedHeap() - before;
+        System.out.printf("LinkedList      %6.1f bytes/element measured%n", (double) nodeBytes / nodes.size());
+        nodes = null;
+
+        before = usedHeap();
+        UnrolledIntList unrolled = new UnrolledIntList();
+        unrolled.addAll(values);
+        long unrolledBytes = usedHeap() - before;
+        System.out.printf("UnrolledIntList %6.1f bytes/element measured, %.1f estimated%n",
+                (double) unrolledBytes / unrolled.size(), unrolled.estimatedBytesPerElement());
+
+        long start = System.nanoTime();
+        unrolled.reverse();
+        long sum = 0;
+        for (PrimitiveIterator.OfInt it = unrolled.iterator(); it.hasNext(); ) {
+            sum += it.nextInt();
+        }
+        System.out.printf("reverse + iterate: %d ms (sum %d)%n", (System.nanoTime() - start) / 1_000_000, sum);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,65 @@
+package org.sri.stack;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Durable counterpart of {@link TextEditorHistory}: every action is appended to a
+ * {@link SegmentedUndoLog}, so the history survives restarts and undo keeps working
+ * after reopening the same directory. Only the log's offset index stays on the heap.
+ */
+public class PersistentTextEditorHistory implements AutoCloseable {
+
+    private static final int DEFAULT_SEGMENT_SIZE = 1 << 20;
+    private static final long COMPACTION_PERIOD_MILLIS = 10_000;
+
+    private final SegmentedUndoLog log;
+
+    private PersistentTextEditorHistory(SegmentedUndoLog log) {
+        this.log = log;
+    }
+
+    // Opens (or recovers) the history stored in directory, keeping at least maxHistory actions
+    public static PersistentTextEditorHistory open(Path directory, int maxHistory) throws IOException {
+        SegmentedUndoLog log = SegmentedUndoLog.open(directory, DEFAULT_SEGMENT_SIZE, maxHistory);
+        log.startBackgroundCompaction(COMPACTION_PERIOD_MILLIS);
+        return new PersistentTextEditorHistory(log);
+    }
+
+    public void addAction(String action) throws IOException {
+        log.append(action);
+    }
+
+    public String undo() throws IOException {
+        return log.removeLast();  // null when there is nothing to undo
+    }
+
+    public int getHistorySize() {
+        return log.size();
+    }
+
+    public void flush() {
+        log.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        log.close();
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Files.createTempDirectory("editor-history");
+        try (PersistentTextEditorHistory history = open(directory, 100_000)) {
+            history.addAction("Type 'Hello'");
+            history.addAction("Type 'World'");
+            history.addAction("Bold");
+        }
+        // reopen as if the editor restarted
+        try (PersistentTextEditorHistory history = open(directory, 100_000)) {
+            System.out.println(history.getHistorySize()); // 3
+            System.out.println(history.undo()); // Bold
+            System.out.println(history.undo()); // Type 'World'
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package org.sri.stack;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only log of undo actions stored in fixed-size, memory-mapped segment files.
+ * Records are length-prefixed UTF-8; the heap only holds one long per record
+ * (segment id and offset), so undo reads the action back from the mapping.
+ * A full segment is sealed with a footer listing its record offsets, which lets
+ * recovery read footers instead of scanning every record; only the open segment is scanned.
+ * Segments entirely older than the retention limit are deleted by {@link #compact()}.
+ *
+ * Segment layout: header [magic][reserved][long write position], records [int length][bytes]...,
+ * and once sealed, footer at the very end [int offset]... [int count][seal magic].
+ */
+public class SegmentedUndoLog implements AutoCloseable {
+
+    private static final int HEADER_MAGIC = 0x554E444F; // "UNDO"
+    private static final int SEAL_MAGIC = 0x5345414C;   // "SEAL"
+    private static final int HEADER_SIZE = 16;
+    private static final int WRITE_POSITION_OFFSET = 8;
+    private static final int FOOTER_FIXED_SIZE = 8;     // count + seal magic
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxEntries; // 0 keeps everything
+
+    private final List<Segment> segments = new ArrayList<>();
+    // (segment id << 32 | offset) of every live record, oldest at indexStart
+    private long[] index = new long[1024];
+    private int indexStart;
+    private int indexEnd;
+
+    private ScheduledFuture<?> compaction;
+    private IOException compactionFailure; // reported by the next append, compact or close
+
+    private SegmentedUndoLog(Path directory, int segmentSize, int maxEntries) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxEntries = maxEntries;
+    }
+
+    public static SegmentedUndoLog open(Path directory, int segmentSize, int maxEntries) throws IOException {
+        if (segmentSize < 4096) {
+            throw new IllegalArgumentException("segmentSize must be at least 4096 bytes: " + segmentSize);
+        }
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("maxEntries must not be negative: " + maxEntries);
+        }
+        Files.createDirectories(directory);
+        SegmentedUndoLog log = new SegmentedUndoLog(directory, segmentSize, maxEntries);
+        log.recover();
+        return log;
+    }
+
+    private void recover() throws IOException {
+        List<Integer> ids = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                ids.add(Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+            }
+        }
+        ids.sort(null);
+        for (int id : ids) {
+            Segment segment = Segment.map(pathFor(id), id, segmentSize);
+            segments.add(segment);
+            if (segment.isSealed()) {
+                // footer holds the offsets, no need to touch the records
+                int count = segment.buffer.getInt(segmentSize - FOOTER_FIXED_SIZE);
+                int offsets = segmentSize - FOOTER_FIXED_SIZE - 4 * count;
+                for (int i = 0; i < count; i++) {
+                    addToIndex(id, segment.buffer.getInt(offsets + 4 * i));
+                }
+                segment.count = count;
+            } else {
+                for (int offset = HEADER_SIZE; offset < segment.writePosition; offset += 4 + segment.buffer.getInt(offset)) {
+                    addToIndex(id, offset);
+                    segment.count++;
+                }
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.add(Segment.create(pathFor(0), 0, segmentSize));
+        } else {
+            active().unseal(segmentSize); // may have been sealed right before a crash
+        }
+    }
+
+    private Path pathFor(int id) {
+        return directory.resolve(String.format("%s%010d%s", PREFIX, id, SUFFIX));
+    }
+
+    private Segment active() {
+        return segments.get(segments.size() - 1);
+    }
+
+    public synchronized void append(String action) throws IOException {
+        throwCompactionFailure();
+        byte[] bytes = action.getBytes(StandardCharsets.UTF_8);
+        int recordSize = 4 + bytes.length;
+        if (HEADER_SIZE + recordSize + FOOTER_FIXED_SIZE + 4 > segmentSize) {
+            throw new IllegalArgumentException("Action of " + bytes.length + " bytes does not fit a segment");
+        }
+        Segment segment = active();
+        if (segment.writePosition + recordSize + footerSize(segment.count + 1) > segmentSize) {
+            seal(segment);
+            segment = Segment.create(pathFor(segment.id + 1), segment.id + 1, segmentSize);
+            segments.add(segment);
+        }
+        int offset = segment.writePosition;
+        segment.buffer.putInt(offset, bytes.length);
+        ByteBuffer target = segment.buffer.duplicate();
+        target.position(offset + 4);
+        target.put(bytes);
+        segment.setWritePosition(offset + recordSize); // publishes the record
+        segment.count++;
+        addToIndex(segment.id, offset);
+    }
+
+    // Removes and returns the newest action, or null when the log is empty
+    public synchronized String removeLast() throws IOException {
+        if (indexEnd == indexStart) {
+            return null;
+        }
+        long entry = index[--indexEnd];
+        String action = read(entry);
+        Segment segment = segmentOf(entry);
+        // newer segments hold no records, e.g. one created right before a crash: drop them first
+        while (active() != segment) {
+            Segment empty = segments.remove(segments.size() - 1);
+            empty.close();
+            Files.deleteIfExists(empty.path);
+        }
+        segment.unseal(segmentSize);
+        segment.setWritePosition((int) entry);
+        segment.count--;
+        if (segment.count == 0 && segments.size() > 1) {
+            // step back into the previous segment and reopen it for appends
+            segments.remove(segments.size() - 1);
+            Files.deleteIfExists(segment.path);
+            segment.close();
+            active().unseal(segmentSize);
+        }
+        return action;
+    }
+
+    public synchronized String peekLast() {
+        return indexEnd == indexStart ? null : read(index[indexEnd - 1]);
+    }
+
+    public synchronized int size() {
+        return indexEnd - indexStart;
+    }
+
+    public synchronized int segmentCount() {
+        return segments.size();
+    }
+
+    // Deletes sealed segments whose records are all beyond the retention limit
+    public synchronized void compact() throws IOException {
+        throwCompactionFailure();
+        if (maxEntries == 0) {
+            return;
+        }
+        while (segments.size() > 1 && size() - segments.get(0).count >= maxEntries) {
+            Segment oldest = segments.remove(0);
+            indexStart += oldest.count;
+            oldest.close();
+            Files.deleteIfExists(oldest.path);
+        }
+        if (indexStart > index.length / 2) {
+            System.arraycopy(index, indexStart, index, 0, indexEnd - indexStart);
+            indexEnd -= indexStart;
+            indexStart = 0;
+        }
+    }
+
+    // Runs compact() every periodMillis on a daemon thread shared by all logs, until close()
+    public synchronized void startBackgroundCompaction(long periodMillis) {
+        if (compaction != null) {
+            return;
+        }
+        compaction = Compactor.EXECUTOR.scheduleWithFixedDelay(() -> {
+            try {
+                compact();
+            } catch (IOException e) {
+                synchronized (this) {
+                    compactionFailure = e;
+                }
+                throw new UncheckedIOException(e); // stops the schedule, the failure is rethrown to the caller
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Forces the open segment to disk; sealed segments were forced when sealed
+    public synchronized void flush() {
+        active().buffer.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (compaction != null) {
+            compaction.cancel(false); // a run already waiting for this lock finds no segments left
+            compaction = null;
+        }
+        for (Segment segment : segments) {
+            segment.buffer.force();
+            segment.close();
+        }
+        segments.clear();
+        throwCompactionFailure();
+    }
+
+    // Background compaction has no caller to report to, so its failure surfaces on the next call
+    private void throwCompactionFailure() throws IOException {
+        IOException failure = compactionFailure;
+        if (failure != null) {
+            compactionFailure = null;
+            throw new IOException("Background compaction failed, it is stopped", failure);
+        }
+    }
+
+    // One compaction thread for every open log, created on first use
+    private static final class Compactor {
+        static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "undo-log-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private Segment segmentOf(long entry) {
+        return segments.get((int) (entry >>> 32) - segments.get(0).id);
+    }
+
+    private String read(long entry) {
+        Segment segment = segmentOf(entry);
+        int offset = (int) entry;
+        int length = segment.buffer.getInt(offset);
+        byte[] bytes = new byte[length];
+        ByteBuffer source = segment.buffer.duplicate();
+        source.position(offset + 4);
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void seal(Segment segment) {
+        int offsets = segmentSize - footerSize(segment.count);
+        for (int i = 0; i < segment.count; i++) {
+            segment.buffer.putInt(offsets + 4 * i, (int) index[indexEnd - segment.count + i]);
+        }
+        segment.buffer.putInt(segmentSize - FOOTER_FIXED_SIZE, segment.count);
+        segment.buffer.putInt(segmentSize - 4, SEAL_MAGIC);
+        segment.buffer.force();
+    }
+
+    private static int footerSize(int count) {
+        return FOOTER_FIXED_SIZE + 4 * count;
+    }
+
+    private void addToIndex(int segmentId, int offset) {
+        if (indexEnd == index.length) {
+            index = Arrays.copyOf(index, index.length * 2);
+        }
+        index[indexEnd++] = ((long) segmentId << 32) | offset;
+    }
+
+    private static final class Segment {
+        final int id;
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        int writePosition;
+        int count;
+
+        private Segment(int id, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+            this.writePosition = buffer.getInt(WRITE_POSITION_OFFSET);
+        }
+
+        static Segment create(Path path, int id, int segmentSize) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            buffer.putInt(0, HEADER_MAGIC);
+            buffer.putInt(WRITE_POSITION_OFFSET, HEADER_SIZE);
+            return new Segment(id, path, channel, buffer);
+        }
+
+        static Segment map(Path path, int id, int segmentSize) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (channel.size() != segmentSize) {
+                channel.close();
+                throw new IOException(path + " has " + channel.size() + " bytes, expected segments of " + segmentSize);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            if (buffer.getInt(0) != HEADER_MAGIC) {
+                channel.close();
+                throw new IOException(path + " is not an undo log segment");
+            }
+            return new Segment(id, path, channel, buffer);
+        }
+
+        boolean isSealed() {
+            return buffer.getInt(buffer.capacity() - 4) == SEAL_MAGIC;
+        }
+
+        void unseal(int segmentSize) {
+            buffer.putInt(segmentSize - 4, 0);
+        }
+
+        void setWritePosition(int position) {
+            writePosition = position;
+            buffer.putInt(WRITE_POSITION_OFFSET, position);
+        }
+
+        void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -1,31 +1,187 @@
 package org.sri.stack;
 
-import java.util.ArrayList;
-import java.util.List;
-
+/**
+ * Undo/redo history kept in a fixed-capacity circular buffer, so evicting the oldest
+ * action is O(1) instead of shifting a list. Entries before the cursor can be undone,
+ * entries after it can be redone until a new action is added.
+ * Consecutive typing is coalesced into one entry, and an optional byte budget evicts
+ * old actions by their estimated size rather than by count.
+ */
 public class TextEditorHistory {
-    private List<String> actions;
-    private static final int MAX_HISTORY = 10;
+    private static final int DEFAULT_CAPACITY = 10;
+    private static final int INITIAL_SLOTS = 16;
+    private static final int COALESCE_LIMIT = 80; // typed characters merged into one undo step
+    // rough heap cost of a String action: object and array headers plus 2 bytes per char
+    private static final int ENTRY_OVERHEAD_BYTES = 56;
+
+    private final int capacity;
+    private final long maxBytes; // 0 means no byte budget
+
+    private String[] actions;
+    private StringBuilder[] typed; // non-null for coalesced typing entries
+    private int head;    // slot of the oldest entry
+    private int count;   // entries stored, undoable and redoable
+    private int cursor;  // entries [0, cursor) are undoable, [cursor, count) redoable
+    private long bytes;
 
     public TextEditorHistory() {
-        actions = new ArrayList<>();
+        this(DEFAULT_CAPACITY);
+    }
+
+    public TextEditorHistory(int capacity) {
+        this(capacity, 0);
+    }
+
+    public TextEditorHistory(int capacity, long maxBytes) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("maxBytes must not be negative: " + maxBytes);
+        }
+        this.capacity = capacity;
+        this.maxBytes = maxBytes;
+        // slots grow up to capacity, so thousands of mostly idle histories stay small
+        int slots = Math.min(capacity, INITIAL_SLOTS);
+        this.actions = new String[slots];
+        this.typed = new StringBuilder[slots];
+    }
+
+    // History limited only by the estimated memory of its actions
+    public static TextEditorHistory boundedByBytes(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive: " + maxBytes);
+        }
+        return new TextEditorHistory(Integer.MAX_VALUE - 8, maxBytes);
     }
 
     public void addAction(String action) {
-        if (actions.size() >= MAX_HISTORY) {
-            actions.remove(0);  // Remove oldest action if we've reached capacity
+        append(action, null);
+    }
+
+    // Records typed text, merging it into the previous entry while the user keeps typing
+    public void addTyping(String text) {
+        if (cursor > 0 && cursor == count) {
+            int last = slot(cursor - 1);
+            StringBuilder run = typed[last];
+            if (run != null && run.length() + text.length() <= COALESCE_LIMIT) {
+                run.append(text);
+                bytes += 2L * text.length();
+                evictForBytes();
+                return;
+            }
+        }
+        append(null, new StringBuilder(text));
+    }
+
+    private void append(String action, StringBuilder typing) {
+        discardRedo();
+        if (count == capacity) {
+            evictOldest();
+        }
+        if (count == actions.length) {
+            grow();
         }
-        actions.add(action);
+        int slot = slot(count);
+        actions[slot] = action;
+        typed[slot] = typing;
+        bytes += estimate(slot);
+        count++;
+        cursor++;
+        evictForBytes();
     }
 
     public String undo() {
-        if (!actions.isEmpty()) {
-            return actions.remove(actions.size() - 1);
+        if (cursor == 0) {
+            return null;  // No actions to undo
+        }
+        cursor--;
+        return describe(slot(cursor));
+    }
+
+    public String redo() {
+        if (cursor == count) {
+            return null;  // Nothing was undone
         }
-        return null;  // No actions to undo
+        return describe(slot(cursor++));
+    }
+
+    public boolean canUndo() {
+        return cursor > 0;
+    }
+
+    public boolean canRedo() {
+        return cursor < count;
     }
 
     public int getHistorySize() {
-        return actions.size();
+        return cursor;
+    }
+
+    public int getRedoSize() {
+        return count - cursor;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getEstimatedBytes() {
+        return bytes;
+    }
+
+    private String describe(int slot) {
+        return typed[slot] != null ? "Type '" + typed[slot] + "'" : actions[slot];
+    }
+
+    private long estimate(int slot) {
+        int length = typed[slot] != null ? typed[slot].length() : actions[slot].length();
+        return ENTRY_OVERHEAD_BYTES + 2L * length;
+    }
+
+    private int slot(int index) {
+        int slot = head + index;
+        return slot >= actions.length ? slot - actions.length : slot;
+    }
+
+    // A new action after undo makes the undone entries unreachable
+    private void discardRedo() {
+        while (count > cursor) {
+            count--;
+            clearSlot(slot(count));
+        }
+    }
+
+    private void evictOldest() {
+        clearSlot(head);
+        head = slot(1);
+        count--;
+        cursor--;
+    }
+
+    private void evictForBytes() {
+        // always keep the newest entry, even if it alone is over budget
+        while (maxBytes > 0 && bytes > maxBytes && count > 1) {
+            evictOldest();
+        }
+    }
+
+    private void clearSlot(int slot) {
+        bytes -= estimate(slot);
+        actions[slot] = null;
+        typed[slot] = null;
+    }
+
+    private void grow() {
+        int newLength = (int) Math.min((long) actions.length * 2, capacity);
+        String[] newActions = new String[newLength];
+        StringBuilder[] newTyped = new StringBuilder[newLength];
+        for (int i = 0; i < count; i++) {
+            newActions[i] = actions[slot(i)];
+            newTyped[i] = typed[slot(i)];
+        }
+        actions = newActions;
+        typed = newTyped;
+        head = 0;
     }
 }
@@ -0,0 +1,274 @@
+package org.sri.threads.CompletableFuture;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads many files concurrently with {@link AsynchronousFileChannel}, at most
+ * maxOpenFiles at a time across all reads running on this reader, and hands every chunk
+ * to a {@link ChunkConsumer} as it arrives. Files of concurrent reads wait in one queue.
+ * Each open file borrows one direct buffer from a fixed pool, so memory use depends on
+ * maxOpenFiles and bufferSize, not on file sizes. Files finish, and are reported, in
+ * completion order; a failing file is reported to the consumer and does not stop the others.
+ * Anything thrown by the consumer fails only that file. After {@link #close()}, files that still
+ * need a read fail instead of being read.
+ */
+public class BulkFileReader implements AutoCloseable {
+
+    private final BlockingQueue<ByteBuffer> buffers;
+    private final ConcurrentLinkedQueue<PendingFile> pending = new ConcurrentLinkedQueue<>();
+    private final ExecutorService ioExecutor;
+    private final AtomicInteger startRequests = new AtomicInteger();
+    private volatile boolean closed;
+
+    public BulkFileReader(int maxOpenFiles, int bufferSize) {
+        if (maxOpenFiles < 1 || bufferSize < 1) {
+            throw new IllegalArgumentException("maxOpenFiles and bufferSize must be positive: "
+                    + maxOpenFiles + ", " + bufferSize);
+        }
+        this.buffers = new ArrayBlockingQueue<>(maxOpenFiles);
+        for (int i = 0; i < maxOpenFiles; i++) {
+            buffers.add(ByteBuffer.allocateDirect(bufferSize));
+        }
+        // completion handlers run here, so consumers never run on the JDK's shared async pool
+        this.ioExecutor = Executors.newFixedThreadPool(Math.min(maxOpenFiles, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Callbacks for one bulk read. Chunks of the same file arrive one at a time and in order;
+     * chunks of different files may arrive concurrently, so shared state needs to be thread-safe.
+     */
+    public interface ChunkConsumer {
+        // chunk is only valid during the call, copy anything that has to outlive it
+        void onChunk(Path file, long position, ByteBuffer chunk);
+
+        default void onComplete(Path file, long bytes) {
+        }
+
+        default void onError(Path file, Throwable error) {
+        }
+    }
+
+    public CompletableFuture<Summary> readDirectory(Path directory, ChunkConsumer consumer) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, Files::isRegularFile)) {
+            for (Path entry : entries) {
+                files.add(entry);
+            }
+        }
+        Collections.sort(files);
+        return readAll(files, consumer);
+    }
+
+    // Completes once every file was read or failed
+    public CompletableFuture<Summary> readAll(List<Path> files, ChunkConsumer consumer) {
+        BulkRead read = new BulkRead(files.size(), consumer);
+        if (files.isEmpty()) {
+            read.done.complete(new Summary(0, 0, 0));
+        }
+        for (Path file : files) {
+            pending.add(new PendingFile(read, file));
+        }
+        startPending();
+        return read.done;
+    }
+
+    // Pairs free buffers with pending files; called after files are queued and after every buffer is returned.
+    // One thread runs the loop at a time, calls made meanwhile (also from a file failing inside start)
+    // only make it go round again, so a long run of failing files does not nest.
+    private void startPending() {
+        if (startRequests.getAndIncrement() != 0) {
+            return;
+        }
+        do {
+            while (true) {
+                ByteBuffer buffer = buffers.poll();
+                if (buffer == null) {
+                    break; // every buffer is in use, whoever returns one calls this again
+                }
+                PendingFile next = pending.poll();
+                if (next == null) {
+                    buffers.add(buffer);
+                    if (pending.isEmpty()) {
+                        break;
+                    }
+                    continue; // a file was queued while we held the buffer
+                }
+                next.read.start(next.file, buffer);
+            }
+        } while (startRequests.decrementAndGet() != 0);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        ioExecutor.shutdown();
+    }
+
+    private final class BulkRead {
+        final ChunkConsumer consumer;
+        final int total;
+        final AtomicInteger finished = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final AtomicLong bytes = new AtomicLong();
+        final CompletableFuture<Summary> done = new CompletableFuture<>();
+
+        BulkRead(int total, ChunkConsumer consumer) {
+            this.consumer = consumer;
+            this.total = total;
+        }
+
+        boolean readerClosed() {
+            return closed;
+        }
+
+        void start(Path file, ByteBuffer buffer) {
+            if (closed) {
+                finish(file, null, buffer, 0, new IllegalStateException("BulkFileReader is closed"));
+                return;
+            }
+            AsynchronousFileChannel channel;
+            try {
+                channel = AsynchronousFileChannel.open(file, EnumSet.of(StandardOpenOption.READ), ioExecutor);
+            } catch (IOException | RuntimeException e) {
+                finish(file, null, buffer, 0, e);
+                return;
+            }
+            new FileRead(this, file, channel, buffer).readFrom(0);
+        }
+
+        void finish(Path file, AsynchronousFileChannel channel, ByteBuffer buffer, long fileBytes, Throwable error) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    error = error == null ? e : error;
+                }
+            }
+            buffer.clear();
+            buffers.add(buffer);
+            try {
+                if (error == null) {
+                    bytes.addAndGet(fileBytes);
+                    consumer.onComplete(file, fileBytes);
+                } else {
+                    failed.incrementAndGet();
+                    consumer.onError(file, error);
+                }
+            } catch (Throwable e) {
+                // a throwing callback, even an assertion, must not stall the remaining files
+            }
+            startPending();
+            if (finished.incrementAndGet() == total) {
+                done.complete(new Summary(total, failed.get(), bytes.get()));
+            }
+        }
+    }
+
+    private static final class PendingFile {
+        final BulkRead read;
+        final Path file;
+
+        PendingFile(BulkRead read, Path file) {
+            this.read = read;
+            this.file = file;
+        }
+    }
+
+    private static final class FileRead implements CompletionHandler<Integer, Long> {
+        private final BulkRead read;
+        private final Path file;
+        private final AsynchronousFileChannel channel;
+        private final ByteBuffer buffer;
+
+        FileRead(BulkRead read, Path file, AsynchronousFileChannel channel, ByteBuffer buffer) {
+            this.read = read;
+            this.file = file;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        // Fails the file when the read cannot be issued, e.g. because the reader was closed
+        void readFrom(long position) {
+            buffer.clear();
+            if (read.readerClosed()) {
+                read.finish(file, channel, buffer, position, new IllegalStateException("BulkFileReader is closed"));
+                return;
+            }
+            try {
+                channel.read(buffer, position, position, this);
+            } catch (RuntimeException e) {
+                read.finish(file, channel, buffer, position, e);
+            }
+        }
+
+        @Override
+        public void completed(Integer count, Long position) {
+            if (count < 0) {
+                read.finish(file, channel, buffer, position, null);
+                return;
+            }
+            buffer.flip();
+            try {
+                read.consumer.onChunk(file, position, buffer.asReadOnlyBuffer());
+            } catch (Throwable e) {
+                read.finish(file, channel, buffer, position, e);
+                return;
+            }
+            readFrom(position + count);
+        }
+
+        @Override
+        public void failed(Throwable error, Long position) {
+            read.finish(file, channel, buffer, position, error);
+        }
+    }
+
+    public static final class Summary {
+        private final int files;
+        private final int failedFiles;
+        private final long bytes;
+
+        Summary(int files, int failedFiles, long bytes) {
+            this.files = files;
+            this.failedFiles = failedFiles;
+            this.bytes = bytes;
+        }
+
+        public int getFiles() {
+            return files;
+        }
+
+        public int getFailedFiles() {
+            return failedFiles;
+        }
+
+        // Bytes of the files that were read completely
+        public long getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public String toString() {
+            return files + " files, " + failedFiles + " failed, " + bytes + " bytes";
+        }
+    }
+}
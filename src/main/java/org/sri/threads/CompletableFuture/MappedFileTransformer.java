@@ -0,0 +1,302 @@
+package org.sri.threads.CompletableFuture;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Byte-level text transform for files of any size: the input is memory-mapped in
+ * newline-aligned chunks, chunks are transformed in parallel (byte translation table and
+ * an optional line filter), and results are written in order with gathering writes.
+ * Only a fixed number of chunks is in flight, each with a pooled direct output buffer,
+ * so heap use does not depend on the file size.
+ */
+public class MappedFileTransformer {
+
+    // Decides per line, on the untranslated bytes chunk[start, end) without the newline
+    public interface LineFilter {
+        boolean keep(ByteBuffer chunk, int start, int end);
+    }
+
+    public static class Options {
+        private int chunkSize = 8 * 1024 * 1024;
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        private final byte[] table = new byte[256];
+        private LineFilter lineFilter;
+
+        public Options() {
+            for (int i = 0; i < 256; i++) {
+                table[i] = (byte) i;
+            }
+        }
+
+        // Target chunk length, a chunk grows past it only to finish a longer line
+        public Options chunkSize(int bytes) {
+            if (bytes < 1) {
+                throw new IllegalArgumentException("chunkSize must be positive: " + bytes);
+            }
+            this.chunkSize = bytes;
+            return this;
+        }
+
+        public Options parallelism(int threads) {
+            if (threads < 1) {
+                throw new IllegalArgumentException("parallelism must be positive: " + threads);
+            }
+            this.parallelism = threads;
+            return this;
+        }
+
+        public Options replace(char from, char to) {
+            if (from > 0x7F || to > 0x7F) {
+                throw new IllegalArgumentException("Only ASCII characters can be replaced byte for byte");
+            }
+            table[from] = (byte) to;
+            return this;
+        }
+
+        public Options lineFilter(LineFilter lineFilter) {
+            this.lineFilter = lineFilter;
+            return this;
+        }
+    }
+
+    public static class Stats {
+        private long bytesRead;
+        private long bytesWritten;
+        private long lines;
+        private long linesKept;
+        private int chunks;
+
+        public long getBytesRead() {
+            return bytesRead;
+        }
+
+        public long getBytesWritten() {
+            return bytesWritten;
+        }
+
+        public long getLines() {
+            return lines;
+        }
+
+        public long getLinesKept() {
+            return linesKept;
+        }
+
+        public int getChunks() {
+            return chunks;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("read %d bytes, wrote %d bytes, kept %d of %d lines in %d chunks",
+                    bytesRead, bytesWritten, linesKept, lines, chunks);
+        }
+    }
+
+    private final Options options;
+
+    public MappedFileTransformer(Options options) {
+        this.options = options;
+    }
+
+    public Stats transform(Path input, Path output) throws IOException {
+        Stats stats = new Stats();
+        int window = options.parallelism * 2; // chunks mapped or waiting to be written
+        BlockingQueue<ByteBuffer> buffers = new ArrayBlockingQueue<>(window);
+        ExecutorService pool = Executors.newFixedThreadPool(options.parallelism);
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            stats.bytesRead = size;
+            ArrayDeque<Future<ChunkResult>> inFlight = new ArrayDeque<>();
+            long position = 0;
+            while (position < size || !inFlight.isEmpty()) {
+                while (position < size && inFlight.size() < window) {
+                    long end = chunkEnd(in, position, size);
+                    long start = position;
+                    ByteBuffer buffer = borrow(buffers, end - start);
+                    inFlight.add(pool.submit(() -> transformChunk(in, start, end, buffer)));
+                    position = end;
+                    stats.chunks++;
+                }
+                writeCompleted(inFlight, out, buffers, stats);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return stats;
+    }
+
+    // Pooled buffers are options.chunkSize; a chunk stretched by a long line gets its own
+    private ByteBuffer borrow(BlockingQueue<ByteBuffer> buffers, long length) {
+        if (length > options.chunkSize) {
+            return ByteBuffer.allocateDirect((int) length);
+        }
+        ByteBuffer buffer = buffers.poll();
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(options.chunkSize);
+    }
+
+    // Waits for the oldest chunk, then writes it with every following chunk that is already done
+    private void writeCompleted(ArrayDeque<Future<ChunkResult>> inFlight, FileChannel out,
+                                BlockingQueue<ByteBuffer> buffers, Stats stats) throws IOException {
+        ChunkResult[] ready = new ChunkResult[inFlight.size()];
+        int count = 0;
+        try {
+            ready[count++] = inFlight.poll().get();
+            while (!inFlight.isEmpty() && inFlight.peek().isDone()) {
+                ready[count++] = inFlight.poll().get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while transforming", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+        ByteBuffer[] gather = new ByteBuffer[count];
+        long remaining = 0;
+        for (int i = 0; i < count; i++) {
+            gather[i] = ready[i].output;
+            remaining += gather[i].remaining();
+            stats.lines += ready[i].lines;
+            stats.linesKept += ready[i].linesKept;
+        }
+        stats.bytesWritten += remaining;
+        while (remaining > 0) {
+            remaining -= out.write(gather);
+        }
+        for (int i = 0; i < count; i++) {
+            if (gather[i].capacity() == options.chunkSize) {
+                gather[i].clear();
+                buffers.offer(gather[i]);
+            }
+        }
+    }
+
+    // End of the chunk starting at start: just past the last newline in the next chunkSize bytes
+    private long chunkEnd(FileChannel in, long start, long size) throws IOException {
+        long length = options.chunkSize;
+        while (true) {
+            long end = Math.min(start + length, size);
+            if (end == size) {
+                return size;
+            }
+            MappedByteBuffer region = in.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            for (int i = (int) (end - start) - 1; i >= 0; i--) {
+                if (region.get(i) == '\n') {
+                    return start + i + 1;
+                }
+            }
+            if (length >= Integer.MAX_VALUE / 2) {
+                throw new IOException("Line at offset " + start + " is longer than " + length + " bytes");
+            }
+            length *= 2; // no newline yet, the line is longer than a chunk
+        }
+    }
+
+    private ChunkResult transformChunk(FileChannel in, long start, long end, ByteBuffer output) throws IOException {
+        MappedByteBuffer chunk = in.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        byte[] table = options.table;
+        LineFilter filter = options.lineFilter;
+        int length = (int) (end - start);
+        int lines = 0;
+        int kept = 0;
+        int lineStart = 0;
+        while (lineStart < length) {
+            int lineEnd = lineStart;
+            while (lineEnd < length && chunk.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int next = lineEnd < length ? lineEnd + 1 : length; // include the newline if there is one
+            lines++;
+            if (filter == null || filter.keep(chunk, lineStart, lineEnd)) {
+                kept++;
+                for (int i = lineStart; i < next; i++) {
+                    output.put(table[chunk.get(i) & 0xFF]);
+                }
+            }
+            lineStart = next;
+        }
+        output.flip();
+        return new ChunkResult(output, lines, kept);
+    }
+
+    private static final class ChunkResult {
+        final ByteBuffer output;
+        final int lines;
+        final int linesKept;
+
+        ChunkResult(ByteBuffer output, int lines, int linesKept) {
+            this.output = output;
+            this.lines = lines;
+            this.linesKept = linesKept;
+        }
+    }
+
+    // Generates a log file, then drops DEBUG lines and replaces 's' with 'W' like ReadAFile does
+    public static void main(String[] args) throws IOException {
+        long targetBytes = args.length > 0 ? Long.parseLong(args[0]) : 256L * 1024 * 1024;
+        Path input = Files.createTempFile("transform-in", ".log");
+        Path output = Files.createTempFile("transform-out", ".log");
+        try {
+            try (FileChannel channel = FileChannel.open(input, StandardOpenOption.WRITE)) {
+                ByteBuffer block = ByteBuffer.allocate(1 << 20);
+                String[] levels = {"INFO", "DEBUG", "WARN", "DEBUG"};
+                long written = 0;
+                for (int line = 0; written < targetBytes; line++) {
+                    byte[] bytes = (levels[line & 3] + " request " + line + " served in " + (line % 97) + "ms\n").getBytes();
+                    if (block.remaining() < bytes.length) {
+                        block.flip();
+                        written += channel.write(block);
+                        block.clear();
+                    }
+                    block.put(bytes);
+                }
+                block.flip();
+                channel.write(block);
+            }
+
+            byte[] debug = "DEBUG".getBytes();
+            Options options = new Options().replace('s', 'W').lineFilter((chunk, start, end) -> {
+                if (end - start < debug.length) {
+                    return true;
+                }
+                for (int i = 0; i < debug.length; i++) {
+                    if (chunk.get(start + i) != debug[i]) {
+                        return true;
+                    }
+                }
+                return false;
+            });
+            long heapBefore = usedHeap();
+            long start = System.nanoTime();
+            Stats stats = new MappedFileTransformer(options).transform(input, output);
+            long elapsed = System.nanoTime() - start;
+            System.out.println(stats);
+            System.out.printf("%.1f MB/s, heap grew by %d KB%n", stats.getBytesRead() / (elapsed / 1e9) / 1e6,
+                    (usedHeap() - heapBefore) / 1024);
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+        }
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -1,42 +1,51 @@
 package org.sri.threads.CompletableFuture;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 public class ReadAFile {
     public static void main(String[] args) {
 //        readAFile();
         readMultipleFiles();
+        readWithBulkReader();
+        transformMapped();
     }
 
 
+    // Paths are relative to the project root
+    private static final String[] SAMPLE_FILES = {"src/test/sample.txt", "src/test/sample2.txt"};
+
     private static void readMultipleFiles() {
-        String[] multipleFiles = new String[]{"/home/sri/DSA/DSA/src/test/sample.txt", "/home/sri/DSA/DSA/src/test/sample2.txt"};
         ExecutorService executorService = Executors.newFixedThreadPool(2);
 
         try {
-            Arrays.stream(multipleFiles).map(file -> {
-                CompletableFuture<String> stringCompletableFuture = CompletableFuture.supplyAsync(() -> {
-
-                    try {
-                        return new String(Files.readAllBytes(Paths.get(file)));
-                    } catch (IOException e) {
-                        throw new RuntimeException(e);
-                    }
-                });
-                stringCompletableFuture.thenApplyAsync(result -> result.replace('s', 'W'));
-                stringCompletableFuture.exceptionally(ex -> {
-                    System.out.println("exception reading a file");
-                    return "default response";
-                });
-                return stringCompletableFuture.join();
-            }).forEach(System.out::println);
+            // start every read before waiting on any of them, so the files are read in parallel
+            List<CompletableFuture<String>> futures = Arrays.stream(SAMPLE_FILES)
+                    .map(file -> CompletableFuture.supplyAsync(() -> {
+                                try {
+                                    return new String(Files.readAllBytes(Paths.get(file)));
+                                } catch (IOException e) {
+                                    throw new RuntimeException(e);
+                                }
+                            }, executorService)
+                            .thenApplyAsync(result -> result.replace('s', 'W'), executorService)
+                            .exceptionally(ex -> {
+                                System.out.println("exception reading a file");
+                                return "default response";
+                            }))
+                    .collect(Collectors.toList());
+            futures.stream().map(CompletableFuture::join).forEach(System.out::println);
 
         } finally {
 
@@ -44,6 +53,58 @@ public class ReadAFile {
         }
     }
 
+    // Same transform without building Strings, chunks are rewritten as they arrive
+    private static void readWithBulkReader() {
+        List<Path> files = new ArrayList<>();
+        for (String file : SAMPLE_FILES) {
+            files.add(Paths.get(file));
+        }
+        files.add(Paths.get("src/test/missing.txt"));
+
+        try (BulkFileReader reader = new BulkFileReader(2, 8192)) {
+            BulkFileReader.Summary summary = reader.readAll(files, new BulkFileReader.ChunkConsumer() {
+                @Override
+                public void onChunk(Path file, long position, ByteBuffer chunk) {
+                    byte[] bytes = new byte[chunk.remaining()];
+                    chunk.get(bytes);
+                    for (int i = 0; i < bytes.length; i++) {
+                        if (bytes[i] == 's') {
+                            bytes[i] = 'W';
+                        }
+                    }
+                    synchronized (System.out) {
+                        System.out.print(new String(bytes, StandardCharsets.UTF_8));
+                    }
+                }
+
+                @Override
+                public void onComplete(Path file, long bytes) {
+                    synchronized (System.out) {
+                        System.out.println();
+                    }
+                }
+
+                @Override
+                public void onError(Path file, Throwable error) {
+                    System.out.println("exception reading " + file + ": " + error);
+                }
+            }).join();
+            System.out.println(summary);
+        }
+    }
+
+    // Streaming mode for large files: the transform never holds the content on the heap
+    private static void transformMapped() {
+        try {
+            Path output = Files.createTempFile("sample", ".txt");
+            MappedFileTransformer.Stats stats = new MappedFileTransformer(new MappedFileTransformer.Options().replace('s', 'W'))
+                    .transform(Paths.get(SAMPLE_FILES[0]), output);
+            System.out.println(new String(Files.readAllBytes(output)) + " (" + stats + ")");
+            Files.delete(output);
+        } catch (IOException e) {
+            System.out.println("exception transforming a file: " + e.getMessage());
+        }
+    }
 
     private static void readAFile() {
 
@@ -53,7 +114,7 @@ public class ReadAFile {
             CompletableFuture<String> completableFuture = CompletableFuture.supplyAsync(() -> {
                         //read a file
                         try {
-                            return new String(Files.readAllBytes(Paths.get("/home/sri/DSA/DSA/src/test/sample3.txt")));
+                            return new String(Files.readAllBytes(Paths.get("src/test/sample3.txt")));
                         } catch (IOException e) {
                             throw new RuntimeException("Error reading file", e);
                         }
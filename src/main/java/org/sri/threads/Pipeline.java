@@ -0,0 +1,413 @@
+package org.sri.threads;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Multi-stage producer/consumer pipeline built from {@link SharedQueue}s.
+ * Each stage has its own workers (a fixed number of platform threads, or virtual threads
+ * when the runtime has them) reading from a bounded queue, so a slow stage pushes back on
+ * everything upstream, down to {@link #submit}. Workers move items in batches of up to
+ * batchSize between stages. A stage function returning null drops the item.
+ *
+ * <pre>
+ * Pipeline&lt;String&gt; pipeline = Pipeline.&lt;String&gt;builder()
+ *         .stage("parse", 2, Integer::parseInt)
+ *         .stage("square", 4, 64, n -&gt; (long) n * n)
+ *         .build(total::add);
+ * </pre>
+ */
+public class Pipeline<I> implements AutoCloseable {
+
+    private static final Object END = new Object(); // sent once per worker after the upstream finished
+
+    private final List<Stage> stages;
+    private final long startNanos = System.nanoTime();
+    // submitters share the read lock, close() takes the write lock so nothing lands behind the END markers
+    private final ReentrantReadWriteLock submitLock = new ReentrantReadWriteLock();
+    private boolean closed;
+
+    private Pipeline(List<Stage> stages) {
+        this.stages = stages;
+        for (Stage stage : stages) {
+            stage.start();
+        }
+    }
+
+    public static <T> Builder<T, T> builder() {
+        return new Builder<>();
+    }
+
+    // Waits while the first stage's buffer is full, safe to call from many threads.
+    // Throws IllegalStateException once close() has started.
+    public void submit(I item) throws InterruptedException {
+        if (item == null) {
+            throw new IllegalArgumentException("item must not be null");
+        }
+        Lock lock = submitLock.readLock();
+        lock.lockInterruptibly();
+        try {
+            ensureOpen();
+            stages.get(0).input.produce(item);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void submitAll(List<? extends I> items) throws InterruptedException {
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i) == null) {
+                throw new IllegalArgumentException("item " + i + " must not be null");
+            }
+        }
+        Lock lock = submitLock.readLock();
+        lock.lockInterruptibly();
+        try {
+            ensureOpen();
+            stages.get(0).input.produceAll(items);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Pipeline is closed");
+        }
+    }
+
+    // Lets every submitted item flow through, then stops the workers. Waits for submits already in
+    // progress; an interrupt does not cut the wait short, it is restored once the workers are done.
+    @Override
+    public void close() {
+        Lock lock = submitLock.writeLock();
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+        boolean interrupted = false;
+        Stage first = stages.get(0);
+        for (int i = 0; i < first.workers; i++) {
+            while (true) {
+                try {
+                    first.input.produce(END);
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        for (Stage stage : stages) {
+            for (Thread thread : stage.threads) {
+                while (true) {
+                    try {
+                        thread.join();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public List<StageMetrics> metrics() {
+        long elapsed = System.nanoTime() - startNanos;
+        List<StageMetrics> metrics = new ArrayList<>();
+        for (Stage stage : stages) {
+            metrics.add(stage.metrics(elapsed));
+        }
+        return metrics;
+    }
+
+    public static final class Builder<I, O> {
+        private final List<Stage> stages = new ArrayList<>();
+        private int bufferCapacity = 1024;
+        private boolean virtualThreads;
+
+        private Builder() {
+        }
+
+        // Capacity of the buffer in front of each stage added after this call
+        public Builder<I, O> bufferCapacity(int capacity) {
+            if (capacity < 1) {
+                throw new IllegalArgumentException("capacity must be positive: " + capacity);
+            }
+            this.bufferCapacity = capacity;
+            return this;
+        }
+
+        // Stages added after this call run on virtual threads where the runtime supports them
+        public Builder<I, O> virtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
+        public <R> Builder<I, R> stage(String name, int workers, Function<? super O, ? extends R> function) {
+            return stage(name, workers, 1, function);
+        }
+
+        @SuppressWarnings("unchecked")
+        public <R> Builder<I, R> stage(String name, int workers, int batchSize, Function<? super O, ? extends R> function) {
+            if (workers < 1 || batchSize < 1) {
+                throw new IllegalArgumentException("workers and batchSize must be positive: " + workers + ", " + batchSize);
+            }
+            stages.add(new Stage(name, workers, batchSize, (Function<Object, Object>) function,
+                    new SharedQueue<>(bufferCapacity), virtualThreads));
+            return (Builder<I, R>) this;
+        }
+
+        // sink is called from the last stage's workers and must be thread-safe
+        @SuppressWarnings("unchecked")
+        public Pipeline<I> build(Consumer<? super O> sink) {
+            if (stages.isEmpty()) {
+                throw new IllegalStateException("A pipeline needs at least one stage");
+            }
+            for (int i = 0; i < stages.size(); i++) {
+                Stage stage = stages.get(i);
+                stage.next = i + 1 < stages.size() ? stages.get(i + 1) : null;
+                stage.sink = (Consumer<Object>) sink;
+            }
+            return new Pipeline<>(new ArrayList<>(stages));
+        }
+    }
+
+    private static final class Stage {
+        final String name;
+        final int workers;
+        final int batchSize;
+        final Function<Object, Object> function;
+        final SharedQueue<Object> input;
+        final boolean virtualThreads;
+        final List<Thread> threads = new ArrayList<>();
+        Stage next;
+        Consumer<Object> sink;
+
+        final AtomicInteger running = new AtomicInteger();
+        final LongAdder processed = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder busyNanos = new LongAdder();
+        final AtomicLong maxBatchNanos = new AtomicLong();
+
+        Stage(String name, int workers, int batchSize, Function<Object, Object> function, SharedQueue<Object> input,
+              boolean virtualThreads) {
+            this.name = name;
+            this.workers = workers;
+            this.batchSize = batchSize;
+            this.function = function;
+            this.input = input;
+            this.virtualThreads = virtualThreads;
+        }
+
+        void start() {
+            ThreadFactory factory = virtualThreads ? VirtualThreads.factory(name + "-") : runnable -> {
+                Thread thread = new Thread(runnable, name + "-" + threads.size());
+                thread.setDaemon(true);
+                return thread;
+            };
+            running.set(workers);
+            for (int i = 0; i < workers; i++) {
+                Thread thread = factory.newThread(this::work);
+                threads.add(thread);
+                thread.start();
+            }
+        }
+
+        private void work() {
+            List<Object> batch = new ArrayList<>(batchSize);
+            List<Object> results = new ArrayList<>(batchSize);
+            try {
+                boolean done = false;
+                while (!done) {
+                    batch.clear();
+                    results.clear();
+                    input.consumeBatch(batch, batchSize);
+                    long start = System.nanoTime();
+                    int ends = 0;
+                    for (Object item : batch) {
+                        if (item == END) {
+                            ends++;
+                            continue;
+                        }
+                        try {
+                            Object result = function.apply(item);
+                            if (result != null) {
+                                results.add(result);
+                            }
+                        } catch (RuntimeException e) {
+                            errors.increment(); // one bad item must not stop the stage
+                        }
+                    }
+                    long elapsed = System.nanoTime() - start;
+                    busyNanos.add(elapsed);
+                    processed.add(batch.size() - ends);
+                    maxBatchNanos.accumulateAndGet(elapsed, Math::max);
+                    emit(results);
+                    if (ends > 0) {
+                        // one END per worker, hand back any extras this batch picked up
+                        for (int i = 1; i < ends; i++) {
+                            input.produce(END);
+                        }
+                        done = true;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                // even a dying worker has to let the next stage finish, or close() waits forever
+                if (running.decrementAndGet() == 0 && next != null) {
+                    endNext();
+                }
+            }
+        }
+
+        private void endNext() {
+            boolean interrupted = Thread.interrupted();
+            for (int i = 0; i < next.workers; i++) {
+                while (true) {
+                    try {
+                        next.input.produce(END);
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void emit(List<Object> results) throws InterruptedException {
+            if (results.isEmpty()) {
+                return;
+            }
+            if (next != null) {
+                next.input.produceAll(results);
+            } else {
+                for (Object result : results) {
+                    try {
+                        sink.accept(result);
+                    } catch (RuntimeException e) {
+                        errors.increment(); // counted like a stage failure, the rest of the batch still goes out
+                    }
+                }
+            }
+        }
+
+        StageMetrics metrics(long elapsedNanos) {
+            long count = processed.sum();
+            long busy = busyNanos.sum();
+            return new StageMetrics(name, count, errors.sum(), input.size(), count * 1e9 / Math.max(1, elapsedNanos),
+                    count == 0 ? 0 : busy / count, maxBatchNanos.get());
+        }
+    }
+
+    public static final class StageMetrics {
+        private final String name;
+        private final long processed;
+        private final long errors;
+        private final int queueDepth;
+        private final double throughputPerSecond;
+        private final long averageLatencyNanos;
+        private final long maxBatchLatencyNanos;
+
+        StageMetrics(String name, long processed, long errors, int queueDepth, double throughputPerSecond,
+                     long averageLatencyNanos, long maxBatchLatencyNanos) {
+            this.name = name;
+            this.processed = processed;
+            this.errors = errors;
+            this.queueDepth = queueDepth;
+            this.throughputPerSecond = throughputPerSecond;
+            this.averageLatencyNanos = averageLatencyNanos;
+            this.maxBatchLatencyNanos = maxBatchLatencyNanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getProcessed() {
+            return processed;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        // Items waiting in front of the stage when the metrics were taken
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        public double getThroughputPerSecond() {
+            return throughputPerSecond;
+        }
+
+        // Time spent in the stage function per item
+        public long getAverageLatencyNanos() {
+            return averageLatencyNanos;
+        }
+
+        public long getMaxBatchLatencyNanos() {
+            return maxBatchLatencyNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d processed, %d errors, depth %d, %.0f items/s, avg %d ns, max batch %d ns",
+                    name, processed, errors, queueDepth, throughputPerSecond, averageLatencyNanos, maxBatchLatencyNanos);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        LongAdder total = new LongAdder();
+        Pipeline<String> pipeline = Pipeline.<String>builder()
+                .virtualThreads(true)
+                .stage("parse", 2, 32, Integer::parseInt)
+                .stage("square", 2, 32, n -> (long) n * n)
+                .build(total::add);
+
+        // one producer per upstream connection
+        int producers = VirtualThreads.isAvailable() ? 10_000 : 100;
+        int perProducer = 100;
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            threads.add(VirtualThreads.start("producer-", () -> {
+                try {
+                    for (int i = 0; i < perProducer; i++) {
+                        pipeline.submit(String.valueOf(i));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        pipeline.close();
+
+        System.out.println("virtual threads: " + VirtualThreads.isAvailable() + ", producers: " + producers);
+        System.out.println("sum of squares: " + total.sum()); // producers * 328350
+        for (StageMetrics metrics : pipeline.metrics()) {
+            System.out.println(metrics);
+        }
+    }
+}
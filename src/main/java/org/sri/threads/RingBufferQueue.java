@@ -0,0 +1,439 @@
+package org.sri.threads;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded multi-producer multi-consumer queue on a power-of-two ring buffer.
+ * A capacity that is not a power of two still bounds the queue exactly, the spare slots stay unused.
+ * Every slot carries a sequence number telling whether it is free for the producer
+ * at a given position or holds an item for the consumer at that position, so producers
+ * and consumers only CAS their own padded counter and never take a lock.
+ * offer/poll fail fast; put/take wait using the queue's {@link WaitStrategy}.
+ */
+public class RingBufferQueue<E> {
+
+    private static final VarHandle SEQUENCE = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final int capacity;
+    private final int slots;      // capacity rounded up to a power of two
+    private final boolean bounded; // offers have to check capacity, the ring alone would hold more
+    private final int mask;
+    private final long[] sequences;
+    private final Object[] items;
+    private final PaddedCounter tail = new PaddedCounter(); // next position to produce
+    private final PaddedCounter head = new PaddedCounter(); // next position to consume
+    private final WaitStrategy waitStrategy;
+
+    public RingBufferQueue(int capacity) {
+        this(capacity, WaitStrategy.parking());
+    }
+
+    public RingBufferQueue(int capacity, WaitStrategy waitStrategy) {
+        if (capacity < 1 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30: " + capacity);
+        }
+        if (waitStrategy == null) {
+            throw new IllegalArgumentException("waitStrategy must not be null");
+        }
+        this.capacity = capacity;
+        this.slots = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.bounded = slots != capacity;
+        this.mask = slots - 1;
+        this.sequences = new long[slots];
+        this.items = new Object[slots];
+        for (int i = 0; i < slots; i++) {
+            sequences[i] = i;
+        }
+        this.waitStrategy = waitStrategy;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    // Approximate while producers and consumers are running
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public boolean offer(E item) {
+        if (item == null) {
+            throw new NullPointerException("item");
+        }
+        long position = tail.get();
+        while (true) {
+            int slot = (int) position & mask;
+            long difference = (long) SEQUENCE.getAcquire(sequences, slot) - position;
+            if (difference == 0) {
+                if (bounded && position - head.get() >= capacity) {
+                    return false; // a free slot, but capacity items are already queued
+                }
+                if (tail.compareAndSet(position, position + 1)) {
+                    items[slot] = item;
+                    SEQUENCE.setRelease(sequences, slot, position + 1);
+                    waitStrategy.signalNotEmpty(1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false; // the consumer a lap behind has not freed the slot: full
+            } else {
+                position = tail.get(); // another producer took it
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long position = head.get();
+        while (true) {
+            int slot = (int) position & mask;
+            long difference = (long) SEQUENCE.getAcquire(sequences, slot) - (position + 1);
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    E item = (E) items[slot];
+                    items[slot] = null;
+                    SEQUENCE.setRelease(sequences, slot, position + slots);
+                    waitStrategy.signalNotFull(1);
+                    return item;
+                }
+                position = head.get();
+            } else if (difference < 0) {
+                return null; // empty
+            } else {
+                position = head.get();
+            }
+        }
+    }
+
+    public void put(E item) throws InterruptedException {
+        for (int attempt = 0; !offer(item); attempt++) {
+            waitStrategy.awaitNotFull(this, attempt);
+        }
+    }
+
+    public E take() throws InterruptedException {
+        E item;
+        for (int attempt = 0; (item = poll()) == null; attempt++) {
+            waitStrategy.awaitNotEmpty(this, attempt);
+        }
+        return item;
+    }
+
+    // Whether the next offer would find its slot free, with volatile reads for Blocking's handshake
+    boolean canOffer() {
+        long position = tail.get();
+        if (bounded && position - head.get() >= capacity) {
+            return false;
+        }
+        return (long) SEQUENCE.getVolatile(sequences, (int) position & mask) - position >= 0;
+    }
+
+    // Whether the next poll would find its slot published
+    boolean canPoll() {
+        long position = head.get();
+        return (long) SEQUENCE.getVolatile(sequences, (int) position & mask) - (position + 1) >= 0;
+    }
+
+    // Offers items[from, to) with a single claim, returns how many were enqueued from the front
+    public int offerAll(E[] batch, int from, int to) {
+        if (from < 0 || to > batch.length || from > to) {
+            throw new IndexOutOfBoundsException("from " + from + ", to " + to + ", length " + batch.length);
+        }
+        if (from == to) {
+            return 0;
+        }
+        // a null found after the claim would leave slots that are never published
+        for (int i = from; i < to; i++) {
+            if (batch[i] == null) {
+                throw new NullPointerException("batch[" + i + "]");
+            }
+        }
+        while (true) {
+            long position = tail.get();
+            int free = 0;
+            int wanted = to - from;
+            if (bounded) {
+                long room = capacity - (position - head.get());
+                if (room <= 0) {
+                    return 0;
+                }
+                wanted = (int) Math.min(wanted, room);
+            }
+            // slots are freed in any order, so each one has to be checked
+            while (free < wanted && (long) SEQUENCE.getAcquire(sequences, (int) (position + free) & mask) == position + free) {
+                free++;
+            }
+            if (free == 0) {
+                if ((long) SEQUENCE.getAcquire(sequences, (int) position & mask) - position < 0) {
+                    return 0;
+                }
+                continue;
+            }
+            if (tail.compareAndSet(position, position + free)) {
+                for (int i = 0; i < free; i++) {
+                    int slot = (int) (position + i) & mask;
+                    items[slot] = batch[from + i];
+                    SEQUENCE.setRelease(sequences, slot, position + i + 1);
+                }
+                waitStrategy.signalNotEmpty(free);
+                return free;
+            }
+        }
+    }
+
+    // Moves up to maxItems available items into target with a single claim
+    @SuppressWarnings("unchecked")
+    public int drainTo(Collection<? super E> target, int maxItems) {
+        if (maxItems <= 0) {
+            return 0;
+        }
+        while (true) {
+            long position = head.get();
+            int ready = 0;
+            while (ready < maxItems && (long) SEQUENCE.getAcquire(sequences, (int) (position + ready) & mask) == position + ready + 1) {
+                ready++;
+            }
+            if (ready == 0) {
+                if ((long) SEQUENCE.getAcquire(sequences, (int) position & mask) - (position + 1) < 0) {
+                    return 0;
+                }
+                continue;
+            }
+            if (head.compareAndSet(position, position + ready)) {
+                int moved = 0;
+                int freed = ready;
+                try {
+                    for (; moved < ready; moved++) {
+                        int slot = (int) (position + moved) & mask;
+                        target.add((E) items[slot]);
+                        items[slot] = null;
+                        SEQUENCE.setRelease(sequences, slot, position + moved + slots);
+                    }
+                } finally {
+                    if (moved < ready) {
+                        freed = moved;
+                        giveBack(position + moved, position + ready);
+                    }
+                    waitStrategy.signalNotFull(freed);
+                }
+                return ready;
+            }
+        }
+    }
+
+    // Returns claimed but undelivered positions [from, to) after target.add threw
+    @SuppressWarnings("unchecked")
+    private void giveBack(long from, long to) {
+        // no other consumer claimed past us: move head back, the items never left their slots
+        if (head.compareAndSet(to, from)) {
+            return;
+        }
+        // otherwise free the slots and enqueue the items again, at the tail
+        for (long position = from; position < to; position++) {
+            int slot = (int) position & mask;
+            E item = (E) items[slot];
+            items[slot] = null;
+            SEQUENCE.setRelease(sequences, slot, position + slots);
+            while (!offer(item)) {
+                Thread.onSpinWait(); // the consumer that overtook us frees space
+            }
+        }
+    }
+
+    /**
+     * How put/take wait for space or items. Spinning burns a core for the lowest latency,
+     * parking backs off with short sleeps, blocking waits on a condition and is woken by the
+     * other side, one waiter per published or freed slot.
+     */
+    public abstract static class WaitStrategy {
+
+        abstract void awaitNotFull(RingBufferQueue<?> queue, int attempt) throws InterruptedException;
+
+        abstract void awaitNotEmpty(RingBufferQueue<?> queue, int attempt) throws InterruptedException;
+
+        // slots items were just published to
+        void signalNotEmpty(int slots) {
+        }
+
+        // slots that were just freed
+        void signalNotFull(int slots) {
+        }
+
+        public static WaitStrategy spinning() {
+            return new Spinning();
+        }
+
+        public static WaitStrategy parking() {
+            return new Parking();
+        }
+
+        // One instance per queue, it holds the queue's lock
+        public static WaitStrategy blocking() {
+            return new Blocking();
+        }
+    }
+
+    private static final class Spinning extends WaitStrategy {
+        @Override
+        void awaitNotFull(RingBufferQueue<?> queue, int attempt) throws InterruptedException {
+            spin();
+        }
+
+        @Override
+        void awaitNotEmpty(RingBufferQueue<?> queue, int attempt) throws InterruptedException {
+            spin();
+        }
+
+        private static void spin() throws InterruptedException {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private static final class Parking extends WaitStrategy {
+        private static final int SPINS = 100;
+        private static final int YIELDS = 200;
+        private static final long MAX_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(500);
+
+        @Override
+        void awaitNotFull(RingBufferQueue<?> queue, int attempt) throws InterruptedException {
+            backOff(attempt);
+        }
+
+        @Override
+        void awaitNotEmpty(RingBufferQueue<?> queue, int attempt) throws InterruptedException {
+            backOff(attempt);
+        }
+
+        // spin, then yield, then park for exponentially longer up to MAX_PARK_NANOS
+        private static void backOff(int attempt) throws InterruptedException {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (attempt < SPINS) {
+                Thread.onSpinWait();
+            } else if (attempt < SPINS + YIELDS) {
+                Thread.yield();
+            } else {
+                int shift = Math.min(attempt - SPINS - YIELDS, 16);
+                LockSupport.parkNanos(Math.min(1000L << shift, MAX_PARK_NANOS));
+            }
+        }
+    }
+
+    private static final class Blocking extends WaitStrategy {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        private final Condition notFull = lock.newCondition();
+        // changed under the lock, read without it so an uncontended offer/poll never takes it
+        private volatile int notEmptyWaiters;
+        private volatile int notFullWaiters;
+
+        @Override
+        void awaitNotFull(RingBufferQueue<?> queue, int attempt) throws InterruptedException {
+            lock.lock();
+            try {
+                notFullWaiters++;
+                // the count is published before the slot is checked and the slot before the count
+                // is read in signal, so either this thread sees the free slot or the poller sees it
+                VarHandle.fullFence();
+                if (!queue.canOffer()) {
+                    notFull.await();
+                }
+            } finally {
+                notFullWaiters--;
+                lock.unlock();
+            }
+        }
+
+        @Override
+        void awaitNotEmpty(RingBufferQueue<?> queue, int attempt) throws InterruptedException {
+            lock.lock();
+            try {
+                notEmptyWaiters++;
+                VarHandle.fullFence();
+                if (!queue.canPoll()) {
+                    notEmpty.await();
+                }
+            } finally {
+                notEmptyWaiters--;
+                lock.unlock();
+            }
+        }
+
+        @Override
+        void signalNotEmpty(int slots) {
+            VarHandle.fullFence();
+            int waiters = notEmptyWaiters;
+            if (waiters > 0) {
+                signal(notEmpty, Math.min(slots, waiters));
+            }
+        }
+
+        @Override
+        void signalNotFull(int slots) {
+            VarHandle.fullFence();
+            int waiters = notFullWaiters;
+            if (waiters > 0) {
+                signal(notFull, Math.min(slots, waiters));
+            }
+        }
+
+        // wakes one waiter per slot; a woken thread that loses the slot to a barging one just waits again
+        private void signal(Condition condition, int count) {
+            lock.lock();
+            try {
+                for (int i = 0; i < count; i++) {
+                    condition.signal();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Cache-line padding on both sides keeps the producer and consumer counters from false sharing
+    static class LeftPad {
+        long p01, p02, p03, p04, p05, p06, p07;
+    }
+
+    static class CounterValue extends LeftPad {
+        volatile long value;
+    }
+
+    static final class PaddedCounter extends CounterValue {
+        private static final VarHandle VALUE;
+
+        static {
+            try {
+                VALUE = MethodHandles.lookup().findVarHandle(CounterValue.class, "value", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        long p11, p12, p13, p14, p15, p16, p17;
+
+        long get() {
+            return value;
+        }
+
+        boolean compareAndSet(long expected, long next) {
+            return VALUE.compareAndSet(this, expected, next);
+        }
+    }
+}
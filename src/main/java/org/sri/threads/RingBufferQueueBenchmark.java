@@ -0,0 +1,170 @@
+package org.sri.threads;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+
+// ArrayBlockingQueue vs RingBufferQueue with 1-32 producer/consumer pairs, then with hundreds of
+// producers blocked on a small queue in front of one consumer, run with: java org.sri.threads.RingBufferQueueBenchmark [messages per pair]
+public class RingBufferQueueBenchmark {
+
+    private static final int CAPACITY = 1024;
+    private static final int[] PAIRS = {1, 2, 4, 8, 16, 32};
+    private static final int FAN_IN_CAPACITY = 16;
+    private static final int[] FAN_IN_PRODUCERS = {100, 500, 1000};
+    private static final int FAN_IN_MESSAGES = 1000; // per producer
+
+    // the parts of a queue the benchmark needs
+    interface Channel {
+        void put(Integer item) throws InterruptedException;
+
+        Integer take() throws InterruptedException;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int messages = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        System.out.println(Runtime.getRuntime().availableProcessors() + " cpus, " + messages + " messages per pair");
+
+        for (int round = 0; round < 2; round++) {
+            System.out.println("round " + round);
+            for (int pairs : PAIRS) {
+                run("ArrayBlockingQueue", pairs, messages, () -> {
+                    BlockingQueue<Integer> queue = new ArrayBlockingQueue<>(CAPACITY);
+                    return new Channel() {
+                        public void put(Integer item) throws InterruptedException {
+                            queue.put(item);
+                        }
+
+                        public Integer take() throws InterruptedException {
+                            return queue.take();
+                        }
+                    };
+                });
+                run("RingBufferQueue parking", pairs, messages,
+                        () -> ringChannel(new RingBufferQueue<>(CAPACITY, RingBufferQueue.WaitStrategy.parking())));
+                run("RingBufferQueue blocking", pairs, messages,
+                        () -> ringChannel(new RingBufferQueue<>(CAPACITY, RingBufferQueue.WaitStrategy.blocking())));
+                if (pairs * 2 <= Runtime.getRuntime().availableProcessors()) {
+                    // spinning only makes sense with a core per thread
+                    run("RingBufferQueue spinning", pairs, messages,
+                            () -> ringChannel(new RingBufferQueue<>(CAPACITY, RingBufferQueue.WaitStrategy.spinning())));
+                }
+            }
+            for (int producers : FAN_IN_PRODUCERS) {
+                fanIn("ArrayBlockingQueue", producers, () -> {
+                    BlockingQueue<Integer> queue = new ArrayBlockingQueue<>(FAN_IN_CAPACITY);
+                    return new Channel() {
+                        public void put(Integer item) throws InterruptedException {
+                            queue.put(item);
+                        }
+
+                        public Integer take() throws InterruptedException {
+                            return queue.take();
+                        }
+                    };
+                });
+                // parking is left out: hundreds of threads backing off on their own starve the one consumer
+                fanIn("RingBufferQueue blocking", producers,
+                        () -> ringChannel(new RingBufferQueue<>(FAN_IN_CAPACITY, RingBufferQueue.WaitStrategy.blocking())));
+            }
+        }
+    }
+
+    private static Channel ringChannel(RingBufferQueue<Integer> queue) {
+        return new Channel() {
+            public void put(Integer item) throws InterruptedException {
+                queue.put(item);
+            }
+
+            public Integer take() throws InterruptedException {
+                return queue.take();
+            }
+        };
+    }
+
+    private static void run(String name, int pairs, int messages, Supplier<Channel> factory) throws InterruptedException {
+        Channel channel = factory.get();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        long[] sums = new long[pairs];
+        for (int p = 0; p < pairs; p++) {
+            int pair = p;
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < messages; i++) {
+                        channel.put(i & 1023); // small Integers come from the cache, no allocation
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                    long sum = 0;
+                    for (int i = 0; i < messages; i++) {
+                        sum += channel.take();
+                    }
+                    sums[pair] = sum;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+        long check = 0;
+        for (long sum : sums) {
+            check += sum;
+        }
+        double total = (double) pairs * messages;
+        System.out.printf("  %-26s %2d pairs  %8.2f M msgs/s  (checksum %d)%n",
+                name, pairs, total / elapsed * 1000, check);
+    }
+
+    // Many producers, one consumer: nearly every producer is blocked in put at any time
+    private static void fanIn(String name, int producers, Supplier<Channel> factory) throws InterruptedException {
+        Channel channel = factory.get();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < FAN_IN_MESSAGES; i++) {
+                        channel.put(i & 1023);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        long total = (long) producers * FAN_IN_MESSAGES;
+        long begin = System.nanoTime();
+        start.countDown();
+        long check = 0;
+        for (long i = 0; i < total; i++) {
+            check += channel.take();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+        System.out.printf("  %-26s %4d producers -> 1 consumer  %8.2f M msgs/s  %6d ms  (checksum %d)%n",
+                name, producers, (double) total / elapsed * 1000, elapsed / 1_000_000, check);
+    }
+}
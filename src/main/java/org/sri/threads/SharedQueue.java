@@ -0,0 +1,62 @@
+package org.sri.threads;
+
+import java.util.Collection;
+import java.util.List;
+
+// Bounded buffer between producers and consumers, backed by a lock-free ring buffer
+class SharedQueue<T> {
+    private static final int DEFAULT_CAPACITY = 5;
+
+    private final RingBufferQueue<T> queue;
+
+    SharedQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    SharedQueue(int capacity) {
+        this(capacity, RingBufferQueue.WaitStrategy.blocking());
+    }
+
+    SharedQueue(int capacity, RingBufferQueue.WaitStrategy waitStrategy) {
+        this.queue = new RingBufferQueue<>(capacity, waitStrategy);
+    }
+
+    // Producer method, waits while the queue is full
+    public void produce(T value) throws InterruptedException {
+        queue.put(value);
+    }
+
+    // Enqueues the items in order, claiming as many slots at once as are free
+    @SuppressWarnings("unchecked")
+    public void produceAll(List<? extends T> values) throws InterruptedException {
+        T[] batch = (T[]) values.toArray();
+        int i = 0;
+        while (i < batch.length) {
+            int offered = queue.offerAll(batch, i, batch.length);
+            if (offered == 0) {
+                queue.put(batch[i]); // full, wait for one slot
+                offered = 1;
+            }
+            i += offered;
+        }
+    }
+
+    // Consumer method, waits while the queue is empty
+    public T consume() throws InterruptedException {
+        return queue.take();
+    }
+
+    // Waits for at least one item, then takes whatever else is ready up to maxItems
+    public int consumeBatch(Collection<? super T> target, int maxItems) throws InterruptedException {
+        int taken = queue.drainTo(target, maxItems);
+        if (taken == 0) {
+            target.add(queue.take());
+            taken = 1 + queue.drainTo(target, maxItems - 1);
+        }
+        return taken;
+    }
+
+    public int size() {
+        return queue.size();
+    }
+}
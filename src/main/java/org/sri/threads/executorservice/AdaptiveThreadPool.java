@@ -0,0 +1,351 @@
+package org.sri.threads.executorservice;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ThreadPoolExecutor whose size is tuned while it runs. Every sample interval a controller
+ * measures completed tasks per second, average queue wait and process CPU load, then
+ * hill-climbs: it keeps moving the pool size in the direction that last raised throughput,
+ * turns around when throughput drops, and shrinks when threads sit idle or the CPU is
+ * saturated without any gain. Sizes stay within [minThreads, maxThreads], and every
+ * decision is kept for {@link #snapshot()}.
+ */
+public class AdaptiveThreadPool implements Executor {
+
+    private static final int DECISION_HISTORY = 64;
+
+    public static class Options {
+        private int minThreads = 1;
+        private int maxThreads = Math.max(4, Runtime.getRuntime().availableProcessors() * 8);
+        private long sampleIntervalMillis = 500;
+        private double tolerance = 0.05;  // relative throughput change treated as noise
+        private double cpuCeiling = 0.90; // above this, only grow if it pays off
+
+        public Options threads(int min, int max) {
+            if (min < 1 || max < min) {
+                throw new IllegalArgumentException("Need 1 <= min <= max: " + min + ", " + max);
+            }
+            this.minThreads = min;
+            this.maxThreads = max;
+            return this;
+        }
+
+        public Options sampleInterval(long millis) {
+            if (millis < 10) {
+                throw new IllegalArgumentException("sampleInterval must be at least 10 ms: " + millis);
+            }
+            this.sampleIntervalMillis = millis;
+            return this;
+        }
+
+        public Options tolerance(double tolerance) {
+            if (tolerance < 0 || tolerance >= 1) {
+                throw new IllegalArgumentException("tolerance must be in [0, 1): " + tolerance);
+            }
+            this.tolerance = tolerance;
+            return this;
+        }
+
+        public Options cpuCeiling(double cpuCeiling) {
+            if (cpuCeiling <= 0 || cpuCeiling > 1) {
+                throw new IllegalArgumentException("cpuCeiling must be in (0, 1]: " + cpuCeiling);
+            }
+            this.cpuCeiling = cpuCeiling;
+            return this;
+        }
+    }
+
+    private final Options options;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService controller;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder started = new LongAdder();
+
+    // controller state, only touched by the controller thread and snapshot() under this
+    private long lastCompleted;
+    private long lastWaitNanos;
+    private long lastStarted;
+    private long lastSampleNanos = System.nanoTime();
+    private double lastThroughput = -1;
+    private int direction = 1;
+    private Sample lastSample = new Sample(0, 0, -1);
+    private final ArrayDeque<Decision> decisions = new ArrayDeque<>();
+
+    public AdaptiveThreadPool(Options options) {
+        this.options = options;
+        this.executor = new ThreadPoolExecutor(options.minThreads, options.minThreads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>());
+        this.controller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "adaptive-pool-controller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        controller.scheduleAtFixedRate(this::adjust, options.sampleIntervalMillis, options.sampleIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        long enqueued = System.nanoTime();
+        executor.execute(() -> {
+            waitNanos.add(System.nanoTime() - enqueued);
+            started.increment();
+            try {
+                task.run();
+            } finally {
+                completed.increment();
+            }
+        });
+    }
+
+    public <T> Future<T> submit(Callable<T> task) {
+        FutureTask<T> future = new FutureTask<>(task);
+        execute(future);
+        return future;
+    }
+
+    public int getPoolSize() {
+        return executor.getCorePoolSize();
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    public void shutdown() {
+        controller.shutdownNow();
+        executor.shutdown();
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    private synchronized void adjust() {
+        long now = System.nanoTime();
+        long done = completed.sum();
+        long waited = waitNanos.sum();
+        long starts = started.sum();
+        double seconds = (now - lastSampleNanos) / 1e9;
+        double throughput = (done - lastCompleted) / seconds;
+        long startedNow = starts - lastStarted;
+        double queueWaitMillis = startedNow == 0 ? 0 : (waited - lastWaitNanos) / 1e6 / startedNow;
+        double cpu = processCpuLoad();
+        lastSampleNanos = now;
+        lastCompleted = done;
+        lastWaitNanos = waited;
+        lastStarted = starts;
+        lastSample = new Sample(throughput, queueWaitMillis, cpu);
+
+        int size = executor.getCorePoolSize();
+        boolean backlog = !executor.getQueue().isEmpty();
+        String reason;
+        if (!backlog && executor.getActiveCount() < size) {
+            direction = -1;
+            reason = "idle threads";
+        } else if (lastThroughput < 0) {
+            direction = 1;
+            reason = "first sample";
+        } else {
+            double change = (throughput - lastThroughput) / Math.max(lastThroughput, 1e-9);
+            if (change < -options.tolerance) {
+                direction = -direction;
+                reason = String.format("throughput fell %.0f%%, reversing", -change * 100);
+            } else if (change <= options.tolerance && cpu >= options.cpuCeiling) {
+                direction = -1;
+                reason = "no gain at " + Math.round(cpu * 100) + "% cpu";
+            } else if (change > options.tolerance) {
+                reason = String.format("throughput rose %.0f%%, continuing", change * 100);
+            } else {
+                reason = "no significant change, probing";
+            }
+        }
+        lastThroughput = throughput;
+
+        // larger pools move in larger steps so convergence time does not depend on the size
+        int step = Math.max(1, size / 8);
+        int target = Math.max(options.minThreads, Math.min(options.maxThreads, size + direction * step));
+        if (target != size) {
+            resize(target);
+        } else if (target == options.maxThreads || target == options.minThreads) {
+            direction = -direction; // at a bound, probe the other way next time
+        }
+        decisions.addLast(new Decision(System.currentTimeMillis(), size, target, throughput, queueWaitMillis, cpu, reason));
+        if (decisions.size() > DECISION_HISTORY) {
+            decisions.removeFirst();
+        }
+    }
+
+    private void resize(int threads) {
+        // grow max before core and shrink core before max, otherwise the executor rejects the change
+        if (threads > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(threads);
+            executor.setCorePoolSize(threads);
+        } else {
+            executor.setCorePoolSize(threads);
+            executor.setMaximumPoolSize(threads);
+        }
+    }
+
+    // Process CPU load in [0, 1], or -1 when the JVM does not expose it
+    private static double processCpuLoad() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuLoad();
+        }
+        return -1;
+    }
+
+    private static String percent(double load) {
+        return load < 0 ? "n/a" : Math.round(load * 100) + "%";
+    }
+
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(executor.getCorePoolSize(), executor.getActiveCount(), executor.getQueue().size(),
+                completed.sum(), lastSample, new ArrayList<>(decisions));
+    }
+
+    private static final class Sample {
+        final double throughput;
+        final double queueWaitMillis;
+        final double cpu;
+
+        Sample(double throughput, double queueWaitMillis, double cpu) {
+            this.throughput = throughput;
+            this.queueWaitMillis = queueWaitMillis;
+            this.cpu = cpu;
+        }
+    }
+
+    public static final class Decision {
+        private final long timeMillis;
+        private final int fromThreads;
+        private final int toThreads;
+        private final double throughput;
+        private final double queueWaitMillis;
+        private final double cpuLoad;
+        private final String reason;
+
+        Decision(long timeMillis, int fromThreads, int toThreads, double throughput, double queueWaitMillis,
+                 double cpuLoad, String reason) {
+            this.timeMillis = timeMillis;
+            this.fromThreads = fromThreads;
+            this.toThreads = toThreads;
+            this.throughput = throughput;
+            this.queueWaitMillis = queueWaitMillis;
+            this.cpuLoad = cpuLoad;
+            this.reason = reason;
+        }
+
+        public long getTimeMillis() {
+            return timeMillis;
+        }
+
+        public int getFromThreads() {
+            return fromThreads;
+        }
+
+        public int getToThreads() {
+            return toThreads;
+        }
+
+        public double getThroughput() {
+            return throughput;
+        }
+
+        public double getQueueWaitMillis() {
+            return queueWaitMillis;
+        }
+
+        public double getCpuLoad() {
+            return cpuLoad;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d -> %d threads: %.0f tasks/s, wait %.1f ms, cpu %s (%s)",
+                    fromThreads, toThreads, throughput, queueWaitMillis, percent(cpuLoad), reason);
+        }
+    }
+
+    public static final class Snapshot {
+        private final int poolSize;
+        private final int activeThreads;
+        private final int queuedTasks;
+        private final long completedTasks;
+        private final Sample sample;
+        private final List<Decision> decisions;
+
+        Snapshot(int poolSize, int activeThreads, int queuedTasks, long completedTasks, Sample sample,
+                 List<Decision> decisions) {
+            this.poolSize = poolSize;
+            this.activeThreads = activeThreads;
+            this.queuedTasks = queuedTasks;
+            this.completedTasks = completedTasks;
+            this.sample = sample;
+            this.decisions = decisions;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public int getActiveThreads() {
+            return activeThreads;
+        }
+
+        public int getQueuedTasks() {
+            return queuedTasks;
+        }
+
+        public long getCompletedTasks() {
+            return completedTasks;
+        }
+
+        // Completed tasks per second over the last sample interval
+        public double getThroughput() {
+            return sample.throughput;
+        }
+
+        public double getQueueWaitMillis() {
+            return sample.queueWaitMillis;
+        }
+
+        // -1 when the JVM does not report process CPU load
+        public double getCpuLoad() {
+            return sample.cpu;
+        }
+
+        // Most recent controller decisions, oldest first
+        public List<Decision> getDecisions() {
+            return decisions;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("pool %d (%d active), %d queued, %d done, %.0f tasks/s, wait %.1f ms, cpu %s",
+                    poolSize, activeThreads, queuedTasks, completedTasks, sample.throughput, sample.queueWaitMillis,
+                    percent(sample.cpu));
+        }
+    }
+}
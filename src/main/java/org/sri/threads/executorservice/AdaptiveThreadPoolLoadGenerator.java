@@ -0,0 +1,69 @@
+package org.sri.threads.executorservice;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Shows the pool size converging under CPU-bound and I/O-bound load,
+// run with: java org.sri.threads.executorservice.AdaptiveThreadPoolLoadGenerator [seconds per phase]
+public class AdaptiveThreadPoolLoadGenerator {
+
+    private static final int BACKLOG = 2_000; // tasks kept queued so the pool is never starved
+
+    public static void main(String[] args) throws InterruptedException {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 15;
+        System.out.println(Runtime.getRuntime().availableProcessors() + " cpus");
+
+        // CPU-bound: more threads than cores only adds switching, expect the pool to settle near the core count
+        run("cpu-bound", seconds, () -> fibonacci(22));
+        // I/O-bound: each task mostly waits, expect the pool to grow toward its maximum
+        run("io-bound", seconds, () -> sleep(20));
+        // mixed: a quarter of the tasks compute, the rest wait
+        AtomicInteger counter = new AtomicInteger();
+        run("mixed", seconds, () -> {
+            if ((counter.getAndIncrement() & 3) == 0) {
+                fibonacci(22);
+            } else {
+                sleep(20);
+            }
+        });
+    }
+
+    private static void run(String name, int seconds, Runnable task) throws InterruptedException {
+        System.out.println("== " + name);
+        AdaptiveThreadPool pool = new AdaptiveThreadPool(new AdaptiveThreadPool.Options()
+                .threads(1, 64)
+                .sampleInterval(250));
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        long nextReport = System.nanoTime();
+        while (System.nanoTime() < end) {
+            while (pool.getQueueSize() < BACKLOG) {
+                pool.execute(task);
+            }
+            if (System.nanoTime() >= nextReport) {
+                System.out.println("  " + pool.snapshot());
+                nextReport += TimeUnit.SECONDS.toNanos(1);
+            }
+            Thread.sleep(5);
+        }
+        AdaptiveThreadPool.Snapshot last = pool.snapshot();
+        System.out.println("  last decisions:");
+        int from = Math.max(0, last.getDecisions().size() - 3);
+        for (AdaptiveThreadPool.Decision decision : last.getDecisions().subList(from, last.getDecisions().size())) {
+            System.out.println("    " + decision);
+        }
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private static long fibonacci(int n) {
+        return n < 2 ? n : fibonacci(n - 1) + fibonacci(n - 2);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,414 @@
+package org.sri.threads.executorservice;
+
+import org.sri.threads.VirtualThreads;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Scheduler facade for mixed batch jobs. CPU tasks run on a work-stealing ForkJoinPool,
+ * blocking tasks on virtual threads (or a bounded pool of platform threads before JDK 21).
+ * Tasks wait in bounded per-priority lanes; every submission hands the executor one ticket,
+ * and a ticket runs the highest-priority task waiting at that moment, so HIGH work overtakes
+ * queued LOW work without a dispatcher thread. A full lane rejects the task.
+ */
+public class TaskScheduler {
+
+    public static final int DEFAULT_BLOCKING_THREADS = 256; // platform threads, when there are no virtual ones
+
+    public enum Priority {
+        HIGH, NORMAL, LOW
+    }
+
+    public enum Kind {
+        CPU, BLOCKING
+    }
+
+    private final ForkJoinPool cpuPool;
+    private final ExecutorService blockingPool;
+    private final Map<Kind, Map<Priority, Lane>> lanes = new EnumMap<>(Kind.class);
+
+    private final Object drainLock = new Object();
+    private int pending; // queued or running, guarded by drainLock
+    private volatile boolean shutdown;
+
+    public TaskScheduler() {
+        this(Runtime.getRuntime().availableProcessors(), 10_000);
+    }
+
+    public TaskScheduler(int cpuParallelism, int laneCapacity) {
+        this(cpuParallelism, laneCapacity, DEFAULT_BLOCKING_THREADS);
+    }
+
+    // maxBlockingThreads only applies without virtual threads, which are cheap enough to start one per ticket
+    public TaskScheduler(int cpuParallelism, int laneCapacity, int maxBlockingThreads) {
+        if (cpuParallelism < 1 || laneCapacity < 1 || maxBlockingThreads < 1) {
+            throw new IllegalArgumentException("cpuParallelism, laneCapacity and maxBlockingThreads must be positive: "
+                    + cpuParallelism + ", " + laneCapacity + ", " + maxBlockingThreads);
+        }
+        this.cpuPool = new ForkJoinPool(cpuParallelism);
+        if (VirtualThreads.isAvailable()) {
+            this.blockingPool = Executors.newCachedThreadPool(VirtualThreads.factory("blocking-"));
+        } else {
+            // tickets beyond maxBlockingThreads wait in the executor's queue, idle threads time out
+            ThreadPoolExecutor bounded = new ThreadPoolExecutor(maxBlockingThreads, maxBlockingThreads, 60,
+                    TimeUnit.SECONDS, new LinkedBlockingQueue<>(), VirtualThreads.factory("blocking-"));
+            bounded.allowCoreThreadTimeOut(true);
+            this.blockingPool = bounded;
+        }
+        for (Kind kind : Kind.values()) {
+            Map<Priority, Lane> byPriority = new EnumMap<>(Priority.class);
+            for (Priority priority : Priority.values()) {
+                byPriority.put(priority, new Lane(kind + "-" + priority, laneCapacity));
+            }
+            lanes.put(kind, byPriority);
+        }
+    }
+
+    public <T> CompletableFuture<T> submit(Priority priority, Callable<T> task) {
+        return submit(Kind.CPU, priority, task);
+    }
+
+    public <T> CompletableFuture<T> submitBlocking(Priority priority, Callable<T> task) {
+        return submit(Kind.BLOCKING, priority, task);
+    }
+
+    public <T> CompletableFuture<T> submit(Kind kind, Priority priority, Callable<T> task) {
+        Lane lane = lanes.get(kind).get(priority);
+        if (shutdown) {
+            lane.rejected.increment();
+            throw new RejectedExecutionException("Scheduler is shut down");
+        }
+        Task<T> queued = new Task<>(task, lane);
+        synchronized (drainLock) {
+            pending++;
+        }
+        if (!lane.queue.offer(queued)) {
+            lane.rejected.increment();
+            finished();
+            throw new RejectedExecutionException("Lane " + lane.name + " is full");
+        }
+        lane.submitted.increment();
+        Runnable ticket = () -> runNext(kind);
+        try {
+            if (kind == Kind.CPU) {
+                cpuPool.execute(ticket);
+            } else {
+                blockingPool.execute(ticket);
+            }
+        } catch (RejectedExecutionException e) {
+            // a concurrent shutdownGracefully stopped the pool after the shutdown check above
+            if (lane.queue.remove(queued)) {
+                lane.submitted.decrement();
+                lane.rejected.increment();
+                finished();
+                throw e;
+            }
+            // another ticket already took this task, so some queued task has no ticket: run it here
+            runNext(kind);
+        }
+        return queued.future;
+    }
+
+    // Submits every task and hands back their futures as they complete, like ExecutorCompletionService
+    public <T> CompletionQueue<T> submitAll(Kind kind, Priority priority, List<? extends Callable<T>> tasks) {
+        CompletionQueue<T> completions = new CompletionQueue<>(tasks.size());
+        for (Callable<T> task : tasks) {
+            CompletableFuture<T> future;
+            try {
+                future = submit(kind, priority, task);
+            } catch (RejectedExecutionException e) {
+                future = new CompletableFuture<>(); // surfaces as this task's result
+                future.completeExceptionally(e);
+            }
+            CompletableFuture<T> submitted = future;
+            future.whenComplete((result, error) -> completions.done.add(submitted));
+        }
+        return completions;
+    }
+
+    private void runNext(Kind kind) {
+        for (Lane lane : lanes.get(kind).values()) { // EnumMap iterates HIGH first
+            Task<?> task = lane.queue.poll();
+            if (task != null) {
+                task.run();
+                return;
+            }
+        }
+    }
+
+    private void finished() {
+        synchronized (drainLock) {
+            if (--pending == 0) {
+                drainLock.notifyAll();
+            }
+        }
+    }
+
+    public List<LaneMetrics> metrics() {
+        List<LaneMetrics> metrics = new ArrayList<>();
+        for (Map<Priority, Lane> byPriority : lanes.values()) {
+            for (Lane lane : byPriority.values()) {
+                metrics.add(lane.snapshot());
+            }
+        }
+        return metrics;
+    }
+
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    /**
+     * Stops accepting tasks and lets queued and running ones finish until the deadline.
+     * Returns true if everything drained; otherwise queued tasks are cancelled and
+     * running ones interrupted.
+     */
+    public boolean shutdownGracefully(long timeout, TimeUnit unit) throws InterruptedException {
+        shutdown = true;
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (drainLock) {
+            long remaining;
+            while (pending > 0 && (remaining = deadline - System.nanoTime()) > 0) {
+                TimeUnit.NANOSECONDS.timedWait(drainLock, remaining);
+            }
+        }
+        boolean drained;
+        synchronized (drainLock) {
+            drained = pending == 0;
+        }
+        if (!drained) {
+            for (Map<Priority, Lane> byPriority : lanes.values()) {
+                for (Lane lane : byPriority.values()) {
+                    Task<?> task;
+                    while ((task = lane.queue.poll()) != null) {
+                        task.future.cancel(false);
+                        finished();
+                    }
+                }
+            }
+            cpuPool.shutdownNow();
+            blockingPool.shutdownNow();
+        } else {
+            cpuPool.shutdown();
+            blockingPool.shutdown();
+        }
+        return drained;
+    }
+
+    // Drains on JVM exit, giving queued work up to the timeout
+    public Thread installShutdownHook(long timeout, TimeUnit unit) {
+        Thread hook = new Thread(() -> {
+            try {
+                if (!shutdownGracefully(timeout, unit)) {
+                    System.out.println("TaskScheduler: deadline passed, cancelled remaining tasks");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "task-scheduler-shutdown");
+        Runtime.getRuntime().addShutdownHook(hook);
+        return hook;
+    }
+
+    private final class Task<T> {
+        final Callable<T> callable;
+        final Lane lane;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        final long enqueuedNanos = System.nanoTime();
+
+        Task(Callable<T> callable, Lane lane) {
+            this.callable = callable;
+            this.lane = lane;
+        }
+
+        void run() {
+            long start = System.nanoTime();
+            lane.recordWait(start - enqueuedNanos);
+            try {
+                if (!future.isDone()) { // skip tasks cancelled while queued
+                    future.complete(callable.call());
+                }
+            } catch (Throwable e) {
+                lane.failed.increment();
+                future.completeExceptionally(e);
+            } finally {
+                lane.runNanos.add(System.nanoTime() - start);
+                lane.completed.increment();
+                finished();
+            }
+        }
+    }
+
+    private static final class Lane {
+        final String name;
+        final BlockingQueue<Task<?>> queue;
+        final LongAdder submitted = new LongAdder();
+        final LongAdder completed = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder waitNanos = new LongAdder();
+        final LongAdder runNanos = new LongAdder();
+        final AtomicLong maxWaitNanos = new AtomicLong();
+
+        Lane(String name, int capacity) {
+            this.name = name;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        void recordWait(long nanos) {
+            waitNanos.add(nanos);
+            maxWaitNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        LaneMetrics snapshot() {
+            long done = completed.sum();
+            return new LaneMetrics(name, queue.size(), submitted.sum(), done, failed.sum(), rejected.sum(),
+                    done == 0 ? 0 : waitNanos.sum() / done, maxWaitNanos.get(), done == 0 ? 0 : runNanos.sum() / done);
+        }
+    }
+
+    // Futures in the order their tasks complete
+    public static final class CompletionQueue<T> {
+        private final BlockingQueue<Future<T>> done = new LinkedBlockingQueue<>();
+        private final int total;
+        private int taken;
+
+        CompletionQueue(int total) {
+            this.total = total;
+        }
+
+        public synchronized boolean hasNext() {
+            return taken < total;
+        }
+
+        // Waits for the next completed task
+        public Future<T> take() throws InterruptedException {
+            synchronized (this) {
+                if (taken == total) {
+                    throw new IllegalStateException("All " + total + " results were already taken");
+                }
+                taken++;
+            }
+            return done.take();
+        }
+    }
+
+    public static final class LaneMetrics {
+        private final String lane;
+        private final int queueDepth;
+        private final long submitted;
+        private final long completed;
+        private final long failed;
+        private final long rejected;
+        private final long averageWaitNanos;
+        private final long maxWaitNanos;
+        private final long averageRunNanos;
+
+        LaneMetrics(String lane, int queueDepth, long submitted, long completed, long failed, long rejected,
+                    long averageWaitNanos, long maxWaitNanos, long averageRunNanos) {
+            this.lane = lane;
+            this.queueDepth = queueDepth;
+            this.submitted = submitted;
+            this.completed = completed;
+            this.failed = failed;
+            this.rejected = rejected;
+            this.averageWaitNanos = averageWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+            this.averageRunNanos = averageRunNanos;
+        }
+
+        public String getLane() {
+            return lane;
+        }
+
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        public long getSubmitted() {
+            return submitted;
+        }
+
+        public long getCompleted() {
+            return completed;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        public long getAverageWaitNanos() {
+            return averageWaitNanos;
+        }
+
+        public long getMaxWaitNanos() {
+            return maxWaitNanos;
+        }
+
+        public long getAverageRunNanos() {
+            return averageRunNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-15s depth %d, submitted %d, completed %d, failed %d, rejected %d, "
+                            + "wait avg %.2f ms (max %.2f ms), run avg %.2f ms",
+                    lane, queueDepth, submitted, completed, failed, rejected,
+                    averageWaitNanos / 1e6, maxWaitNanos / 1e6, averageRunNanos / 1e6);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        TaskScheduler scheduler = new TaskScheduler(2, 100);
+        scheduler.installShutdownHook(5, TimeUnit.SECONDS);
+
+        // slow I/O-like tasks first, so results clearly arrive in completion order
+        List<Callable<String>> io = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            int taskId = i;
+            io.add(() -> {
+                Thread.sleep(500 - taskId * 100);
+                return "io " + taskId;
+            });
+        }
+        CompletionQueue<String> results = scheduler.submitAll(Kind.BLOCKING, Priority.NORMAL, io);
+
+        for (int i = 0; i < 20; i++) {
+            int n = 25 + i % 5;
+            scheduler.submit(i % 4 == 0 ? Priority.HIGH : Priority.LOW, () -> fibonacci(n));
+        }
+        while (results.hasNext()) {
+            System.out.println("Result: " + results.take().get()); // io 4, io 3, ... io 0
+        }
+
+        scheduler.shutdownGracefully(5, TimeUnit.SECONDS);
+        for (LaneMetrics metrics : scheduler.metrics()) {
+            System.out.println(metrics);
+        }
+    }
+
+    private static long fibonacci(int n) {
+        return n < 2 ? n : fibonacci(n - 1) + fibonacci(n - 2);
+    }
+}
@@ -0,0 +1,93 @@
+package org.sri.arrays;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KSumEngineTest {
+
+    @Test
+    public void testTripletsMatchThreeSum() {
+        Random random = new Random(11);
+        for (int round = 0; round < 200; round++) {
+            int n = random.nextInt(120);
+            int range = round % 2 == 0 ? 5 : 200; // narrow ranges mean many duplicates
+            int[] nums = new int[n];
+            for (int i = 0; i < n; i++) {
+                nums[i] = random.nextInt(2 * range + 1) - range;
+            }
+            int target = random.nextInt(2 * range + 1) - range;
+            KSumEngine engine = new KSumEngine(ForkJoinPool.commonPool(), 1 + random.nextInt(8));
+            int[] original = nums.clone();
+
+            Set<List<Integer>> streamed = Collections.synchronizedSet(new HashSet<>());
+            long count = engine.forEachTriplet(nums, target, (a, b, c) -> assertTrue(streamed.add(List.of(a, b, c))));
+            assertArrayEquals(original, nums); // the engine sorts a copy
+
+            List<List<Integer>> expected = ThreeSum.threeSum(nums.clone(), target);
+            assertEquals(new HashSet<>(expected), streamed, "round " + round);
+            assertEquals(expected.size(), count);
+            assertEquals(expected.size(), engine.countTriplets(nums, target));
+        }
+    }
+
+    @Test
+    public void testQuadrupletsMatchBruteForce() {
+        Random random = new Random(4);
+        KSumEngine engine = new KSumEngine();
+        for (int round = 0; round < 100; round++) {
+            int n = random.nextInt(30);
+            int[] nums = new int[n];
+            for (int i = 0; i < n; i++) {
+                nums[i] = random.nextInt(11) - 5;
+            }
+            int target = random.nextInt(11) - 5;
+            Set<List<Integer>> expected = new HashSet<>();
+            for (int a = 0; a < n; a++) {
+                for (int b = a + 1; b < n; b++) {
+                    for (int c = b + 1; c < n; c++) {
+                        for (int d = c + 1; d < n; d++) {
+                            if (nums[a] + nums[b] + nums[c] + nums[d] == target) {
+                                int[] quad = {nums[a], nums[b], nums[c], nums[d]};
+                                Arrays.sort(quad);
+                                expected.add(List.of(quad[0], quad[1], quad[2], quad[3]));
+                            }
+                        }
+                    }
+                }
+            }
+            List<List<Integer>> streamed = Collections.synchronizedList(new ArrayList<>());
+            long count = engine.forEachQuadruplet(nums, target, (a, b, c, d) -> streamed.add(List.of(a, b, c, d)));
+            assertEquals(expected.size(), count, "round " + round);
+            assertEquals(expected.size(), streamed.size()); // no quadruplet reported twice
+            assertEquals(expected, new HashSet<>(streamed));
+            assertEquals(expected.size(), engine.countQuadruplets(nums, target));
+        }
+    }
+
+    @Test
+    public void testEdgeCases() {
+        KSumEngine engine = new KSumEngine();
+        assertEquals(0, engine.countTriplets(new int[0], 0));
+        assertEquals(0, engine.countTriplets(new int[]{1, -1}, 0)); // fewer values than k
+        assertEquals(0, engine.countQuadruplets(new int[]{0, 0, 0}, 0));
+        assertEquals(1, engine.countTriplets(new int[]{0, 0, 0, 0, 0}, 0));
+        assertEquals(1, engine.countQuadruplets(new int[]{2, 2, 2, 2, 2}, 8));
+        assertEquals(2, engine.countTriplets(new int[]{-4, -1, -1, 0, 1, 2}, 0));
+        assertEquals(3, engine.countQuadruplets(new int[]{1, 0, -1, 0, -2, 2}, 0));
+
+        // sums past the int range
+        int max = Integer.MAX_VALUE;
+        assertEquals(1, engine.countTriplets(new int[]{max, max, max}, 3L * max));
+        assertThrows(IllegalArgumentException.class, () -> new KSumEngine(ForkJoinPool.commonPool(), 0));
+    }
+}
@@ -0,0 +1,94 @@
+package org.sri.arrays;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopKTest {
+
+    private static int[] sortedTopK(int[] arr, int k) {
+        int[] sorted = arr.clone();
+        Arrays.sort(sorted);
+        int[] result = new int[Math.min(k, sorted.length)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = sorted[sorted.length - 1 - i];
+        }
+        return result;
+    }
+
+    @Test
+    public void testMatchesSorting() {
+        Random random = new Random(13);
+        for (int round = 0; round < 500; round++) {
+            int n = random.nextInt(40);
+            int[] arr = new int[n];
+            for (int i = 0; i < n; i++) {
+                arr[i] = random.nextInt(round % 2 == 0 ? 5 : 1000) - 500; // small ranges give duplicates
+            }
+            int k = 1 + random.nextInt(45); // often larger than n
+            int[] expected = sortedTopK(arr, k);
+            String where = "round " + round;
+
+            assertArrayEquals(expected, TopK.topK(arr, k), where);
+            TopK streaming = new TopK(k);
+            streaming.offerAll(arr, 0, n);
+            assertArrayEquals(expected, streaming.toSortedArray(), where);
+            if (k <= n) {
+                assertEquals(expected[k - 1], TopK.kthLargest(arr, k), where);
+                assertEquals(expected[k - 1], streaming.kthLargest(), where);
+            }
+        }
+    }
+
+    @Test
+    public void testAgreesWithSecondLargestOnDistinctValues() {
+        Random random = new Random(2);
+        for (int round = 0; round < 100; round++) {
+            int[] arr = random.ints(-10_000, 10_000).distinct().limit(2 + random.nextInt(50)).toArray();
+            assertEquals(SecondLargest.findSecondLargest(arr), TopK.kthLargest(arr, 2));
+        }
+    }
+
+    @Test
+    public void testEdgeCases() {
+        int[] empty = new int[0];
+        assertEquals(0, TopK.topK(empty, 3).length);
+        assertThrows(IllegalArgumentException.class, () -> TopK.kthLargest(empty, 1));
+
+        int[] arr = {4, 4, 4, 1};
+        assertArrayEquals(new int[]{4, 4, 4, 1}, TopK.topK(arr, 10));
+        assertEquals(4, TopK.kthLargest(arr, 3)); // duplicates count separately, unlike SecondLargest
+        assertThrows(IllegalArgumentException.class, () -> TopK.kthLargest(arr, 5));
+        assertThrows(IllegalArgumentException.class, () -> TopK.kthLargest(arr, 0));
+
+        TopK streaming = new TopK(5);
+        streaming.offerAll(arr, 0, arr.length);
+        assertEquals(4, streaming.size());
+        assertThrows(IllegalStateException.class, streaming::kthLargest);
+        assertThrows(IllegalArgumentException.class, () -> new TopK(0));
+    }
+
+    @Test
+    public void testParallelTopKAndMerge() {
+        int[] arr = new Random(7).ints(300_000, 0, 50_000).toArray();
+        int[] expected = sortedTopK(arr, 100);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertArrayEquals(expected, TopK.parallelTopK(arr, 100, pool).toSortedArray());
+            assertEquals(0, TopK.parallelTopK(new int[0], 3, pool).size());
+        } finally {
+            pool.shutdown();
+        }
+
+        TopK left = new TopK(100);
+        TopK right = new TopK(100);
+        left.offerAll(arr, 0, arr.length / 2);
+        right.offerAll(arr, arr.length / 2, arr.length);
+        left.merge(right);
+        assertArrayEquals(expected, left.toSortedArray());
+    }
+}
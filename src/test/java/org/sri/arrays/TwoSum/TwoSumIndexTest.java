@@ -0,0 +1,65 @@
+package org.sri.arrays.TwoSum;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TwoSumIndexTest {
+
+    @Test
+    public void testBatchAgreesWithUnsortedTwoSum() {
+        Random random = new Random(10);
+        for (int round = 0; round < 200; round++) {
+            int n = random.nextInt(300);
+            int[] nums = new int[n];
+            for (int i = 0; i < n; i++) {
+                nums[i] = random.nextInt(round % 2 == 0 ? 20 : 2000) - 500; // duplicates and negatives
+            }
+            long[] targets = new long[100];
+            for (int t = 0; t < targets.length; t++) {
+                targets[t] = random.nextInt(round % 2 == 0 ? 60 : 5000) - 1000;
+            }
+            TwoSumIndex index = new TwoSumIndex(nums);
+            int[] out = new int[targets.length * 2];
+            int[] parallelOut = new int[targets.length * 2];
+            index.query(targets, out);
+            index.queryParallel(targets, parallelOut, ForkJoinPool.commonPool());
+            assertArrayEquals(out, parallelOut);
+
+            for (int t = 0; t < targets.length; t++) {
+                boolean exists = TwoSumUnsorted.twoSumUnsorted(nums, (int) targets[t]).length == 2;
+                int i = out[2 * t];
+                int j = out[2 * t + 1];
+                if (exists) {
+                    assertTrue(i >= 0 && i < j, "round " + round + ", target " + targets[t]);
+                    assertEquals(targets[t], (long) nums[i] + nums[j]);
+                } else {
+                    assertEquals(-1, i);
+                    assertEquals(-1, j);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSinglePairsAndEdgeCases() {
+        TwoSumIndex index = new TwoSumIndex(new int[]{9, 1, 7, 3, 5});
+        assertArrayEquals(new int[]{1, 2}, index.query(8));
+        assertArrayEquals(new int[]{0, 2}, index.query(16));
+        assertArrayEquals(new int[]{}, index.query(100));
+        assertArrayEquals(new int[]{}, index.query(18)); // 9 + 9 needs two nines
+
+        assertArrayEquals(new int[]{0, 3}, new TwoSumIndex(new int[]{4, 1, 2, 4}).query(8));
+        assertArrayEquals(new int[]{}, new TwoSumIndex(new int[0]).query(0));
+        assertArrayEquals(new int[]{}, new TwoSumIndex(new int[]{3}).query(6));
+
+        // sums past the int range
+        TwoSumIndex large = new TwoSumIndex(new int[]{Integer.MAX_VALUE, 0, Integer.MAX_VALUE});
+        assertArrayEquals(new int[]{0, 2}, large.query(2L * Integer.MAX_VALUE));
+
+        assertThrows(IllegalArgumentException.class, () -> index.query(new long[]{1, 2}, new int[3]));
+    }
+}
@@ -0,0 +1,51 @@
+package org.sri.arrays.maximumwater;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MaxWaterContainerTest {
+
+    @Test
+    public void testAllVersionsMatchTwoPointerScan() {
+        Random random = new Random(14);
+        for (int round = 0; round < 300; round++) {
+            int n = random.nextInt(round % 10 == 0 ? 200_000 : 500);
+            int[] height = new int[n];
+            for (int i = 0; i < n; i++) {
+                height[i] = random.nextInt(round % 2 == 0 ? 5 : 10_000); // few distinct values means many ties
+            }
+            long expected = MaxWaterContainer.maxArea(height);
+            assertEquals(expected, MaxWaterContainer.maxAreaLong(height), "long, round " + round);
+            assertEquals(expected, MaxWaterContainer.maxAreaParallel(height, ForkJoinPool.commonPool()),
+                    "parallel, round " + round);
+        }
+    }
+
+    @Test
+    public void testSmallAndLargeInputs() {
+        int[] example = {1, 8, 6, 2, 5, 4, 8, 3, 7};
+        assertEquals(49, MaxWaterContainer.maxAreaLong(example));
+        assertEquals(49, MaxWaterContainer.maxAreaParallel(example, ForkJoinPool.commonPool()));
+        assertEquals(0, MaxWaterContainer.maxAreaLong(new int[0]));
+        assertEquals(0, MaxWaterContainer.maxAreaParallel(new int[]{5}, ForkJoinPool.commonPool()));
+
+        // the int version overflows here, the long versions must not
+        int[] tall = new int[200_000];
+        Arrays.fill(tall, Integer.MAX_VALUE);
+        long expected = (long) Integer.MAX_VALUE * (tall.length - 1);
+        assertEquals(expected, MaxWaterContainer.maxAreaLong(tall));
+        assertEquals(expected, MaxWaterContainer.maxAreaParallel(tall, ForkJoinPool.commonPool()));
+    }
+
+    @Test
+    public void testMaxAreasPerArray() {
+        int[][] heights = {{1, 8, 6, 2, 5, 4, 8, 3, 7}, {}, {3}, {1, 1}, {4, 3, 2, 1, 4}};
+        assertArrayEquals(new long[]{49, 0, 0, 1, 16}, MaxWaterContainer.maxAreas(heights, ForkJoinPool.commonPool()));
+        assertArrayEquals(new long[0], MaxWaterContainer.maxAreas(new int[0][], ForkJoinPool.commonPool()));
+    }
+}
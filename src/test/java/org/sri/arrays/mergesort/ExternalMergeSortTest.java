@@ -0,0 +1,115 @@
+package org.sri.arrays.mergesort;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExternalMergeSortTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testSortIntsWithSeveralMergePasses() throws IOException {
+        int[] values = new int[10_007];
+        Random random = new Random(3);
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 4);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(5000) - 2500;
+            buffer.putInt(values[i]);
+        }
+        Path input = tempDir.resolve("input.bin");
+        Path output = tempDir.resolve("output.bin");
+        Files.write(input, buffer.array());
+
+        // 100 runs with fan-in 4 needs several intermediate passes
+        ExternalMergeSort.Options options = new ExternalMergeSort.Options()
+                .runSize(101).fanIn(4).bufferSize(256).tempDirectory(tempDir);
+        ExternalMergeSort.Stats stats = new ExternalMergeSort(options).sort(input, output, ExternalMergeSort.ElementType.INT);
+
+        Arrays.sort(values);
+        ByteBuffer sorted = ByteBuffer.wrap(Files.readAllBytes(output));
+        assertEquals(values.length * 4, sorted.remaining());
+        for (int value : values) {
+            assertEquals(value, sorted.getInt());
+        }
+        assertEquals(100, stats.getRuns());
+        assertTrue(stats.getMergePasses() > 1);
+        assertEquals(values.length * 4L, stats.getBytesWritten() / (stats.getMergePasses() + 1));
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(2, files.count(), "temp runs should be cleaned up");
+        }
+    }
+
+    @Test
+    public void testSortLongsLittleEndian() throws IOException {
+        long[] values = new Random(4).longs(5_000).toArray();
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 8).order(ByteOrder.LITTLE_ENDIAN);
+        for (long value : values) {
+            buffer.putLong(value);
+        }
+        Path input = tempDir.resolve("input.bin");
+        Path output = tempDir.resolve("output.bin");
+        Files.write(input, buffer.array());
+
+        ExternalMergeSort.Options options = new ExternalMergeSort.Options()
+                .runSize(999).fanIn(3).bufferSize(512).byteOrder(ByteOrder.LITTLE_ENDIAN).tempDirectory(tempDir);
+        new ExternalMergeSort(options).sort(input, output, ExternalMergeSort.ElementType.LONG);
+
+        Arrays.sort(values);
+        ByteBuffer sorted = ByteBuffer.wrap(Files.readAllBytes(output)).order(ByteOrder.LITTLE_ENDIAN);
+        for (long value : values) {
+            assertEquals(value, sorted.getLong());
+        }
+    }
+
+    @Test
+    public void testRunSizeMustFitOneMapping() {
+        ExternalMergeSort.Options options = new ExternalMergeSort.Options();
+        options.runSize(Integer.MAX_VALUE / 8);
+        assertThrows(IllegalArgumentException.class, () -> options.runSize(Integer.MAX_VALUE / 8 + 1));
+        assertThrows(IllegalArgumentException.class, () -> options.runSize(0));
+    }
+
+    @Test
+    public void testFailedMergePassLeavesNoTempFiles() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4_000 * 4);
+        Random random = new Random(5);
+        while (buffer.hasRemaining()) {
+            buffer.putInt(random.nextInt());
+        }
+        Path input = tempDir.resolve("input.bin");
+        Files.write(input, buffer.array());
+
+        ExternalMergeSort.Options options = new ExternalMergeSort.Options()
+                .runSize(100).fanIn(4).bufferSize(256).tempDirectory(tempDir);
+        ExternalMergeSort sorter = new ExternalMergeSort(options) {
+            private int merges;
+
+            @Override
+            void mergeRuns(List<Path> runs, Path output, ElementType type, Stats stats) throws IOException {
+                if (++merges == 3) { // two runs of the first pass are already written
+                    throw new IOException("disk full");
+                }
+                super.mergeRuns(runs, output, type, stats);
+            }
+        };
+        assertThrows(IOException.class,
+                () -> sorter.sort(input, tempDir.resolve("output.bin"), ExternalMergeSort.ElementType.INT));
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(List.of(input), files.collect(Collectors.toList()));
+        }
+    }
+}
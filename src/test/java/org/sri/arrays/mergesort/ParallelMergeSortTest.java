@@ -0,0 +1,45 @@
+package org.sri.arrays.mergesort;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelMergeSortTest {
+
+    // small thresholds so the parallel sort and merge paths run on small inputs
+    private final ParallelMergeSort sorter = new ParallelMergeSort(4, 64, ForkJoinPool.commonPool());
+
+    @Test
+    public void testSortIntsMatchesArraysSort() {
+        Random random = new Random(1);
+        for (int size : new int[]{0, 1, 2, 5, 63, 64, 65, 1000, 100_003}) {
+            int[] arr = new int[size];
+            for (int i = 0; i < size; i++) {
+                arr[i] = random.nextInt(size / 2 + 1) - size / 4; // plenty of duplicates and negatives
+            }
+            int[] expected = arr.clone();
+            Arrays.sort(expected);
+            sorter.sort(arr);
+            assertArrayEquals(expected, arr, "size " + size);
+        }
+    }
+
+    @Test
+    public void testSortLongsMatchesArraysSort() {
+        Random random = new Random(2);
+        long[] arr = new long[50_001];
+        for (int i = 0; i < arr.length; i++) {
+            arr[i] = random.nextLong();
+        }
+        long[] expected = arr.clone();
+        Arrays.sort(expected);
+        new ParallelMergeSort().sort(arr);
+        assertArrayEquals(expected, arr);
+        sorter.sort(arr); // already sorted input
+        assertArrayEquals(expected, arr);
+    }
+}
@@ -0,0 +1,77 @@
+package org.sri.arrays.slidingwindow;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CharWindowKernelsTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testKernelsMatchSequentialVersions() throws IOException {
+        Random random = new Random(7);
+        Path file = directory.resolve("input.txt");
+        for (int round = 0; round < 300; round++) {
+            int length = random.nextInt(round % 10 == 0 ? 100_000 : 200); // the large ones cross ChannelCursor buffers
+            int alphabet = 1 + random.nextInt(round % 2 == 0 ? 4 : 60);  // small alphabets mean many duplicates
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < length; i++) {
+                builder.append((char) ('A' + random.nextInt(alphabet)));
+            }
+            String s = builder.toString();
+            byte[] bytes = s.getBytes(StandardCharsets.US_ASCII);
+            int k = random.nextInt(alphabet + 3); // includes 0 and k above the number of distinct characters
+
+            int expectedK = LongestSubstringKDistinct.lengthOfLongestSubstringKDistinct(s, k);
+            int expectedUnique = LongestSubstringWithoutRepeatingCharacters.longestSubstringWithoutRepeatingCharacters(s);
+            assertEquals(expectedK, CharWindowKernels.longestKDistinct(s, k), "chars, round " + round);
+            assertEquals(expectedK, CharWindowKernels.longestKDistinct(bytes, k), "bytes, round " + round);
+            assertEquals(expectedUnique, CharWindowKernels.longestWithoutRepeating(s), "chars, round " + round);
+            assertEquals(expectedUnique, CharWindowKernels.longestWithoutRepeating(bytes), "bytes, round " + round);
+
+            // a buffer whose position is not 0
+            ByteBuffer padded = ByteBuffer.allocateDirect(bytes.length + 3);
+            padded.put(new byte[]{'x', 'y', 'z'}).put(bytes).flip();
+            padded.position(3);
+            assertEquals(expectedK, CharWindowKernels.longestKDistinct(padded, k), "buffer, round " + round);
+            assertEquals(expectedUnique, CharWindowKernels.longestWithoutRepeating(padded), "buffer, round " + round);
+
+            if (round % 10 == 0) {
+                Files.write(file, bytes);
+                try (FileChannel channel = FileChannel.open(file)) {
+                    assertEquals(expectedK, CharWindowKernels.longestKDistinct(channel, k), "channel, round " + round);
+                    assertEquals(expectedUnique, CharWindowKernels.longestWithoutRepeating(channel), "channel, round " + round);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testEdgeCases() {
+        assertEquals(0, CharWindowKernels.longestKDistinct("", 2));
+        assertEquals(0, CharWindowKernels.longestKDistinct(new byte[0], 2));
+        assertEquals(0, CharWindowKernels.longestWithoutRepeating(""));
+        assertEquals(0, CharWindowKernels.longestWithoutRepeating((CharSequence) null));
+        assertEquals(0, CharWindowKernels.longestKDistinct("abc", 0));
+        assertEquals(3, CharWindowKernels.longestKDistinct("abc", 10));
+        assertEquals(4, CharWindowKernels.longestKDistinct("aaaa", 1));
+        assertEquals(1, CharWindowKernels.longestWithoutRepeating("aaaa"));
+
+        // surrogate pairs count as one character
+        assertEquals(3, CharWindowKernels.longestWithoutRepeating("😀a😀b"));
+        assertEquals(3, CharWindowKernels.longestKDistinct("😀😀ab", 2));
+        // bytes above 0x7F are not negative table indexes
+        assertEquals(2, CharWindowKernels.longestWithoutRepeating(new byte[]{(byte) 0xFF, (byte) 0x80, (byte) 0xFF}));
+    }
+}
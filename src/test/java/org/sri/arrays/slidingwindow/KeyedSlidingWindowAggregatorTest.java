@@ -0,0 +1,49 @@
+package org.sri.arrays.slidingwindow;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyedSlidingWindowAggregatorTest {
+
+    @Test
+    public void testKeyedSeriesFromManyThreads() throws InterruptedException {
+        KeyedSlidingWindowAggregator windows = KeyedSlidingWindowAggregator.countWindows(100);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            String key = "series-" + (t % 2);
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    windows.add(key, 1);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(2, windows.seriesCount());
+        assertEquals(100.0, windows.sum("series-0"));
+        assertEquals(1.0, windows.average("series-1"));
+        assertEquals(1.0, windows.min("series-1"));
+
+        assertEquals(0.0, windows.sum("missing"));
+        assertTrue(Double.isNaN(windows.max("missing")));
+        windows.addAll("batch", new double[]{3, 1, 2}, 0, 3);
+        assertEquals(3.0, windows.max("batch"));
+        windows.remove("batch");
+        assertEquals(2, windows.seriesCount());
+
+        KeyedSlidingWindowAggregator timed = KeyedSlidingWindowAggregator.timeWindows(1000, 16);
+        timed.add("a", 0, 4);
+        timed.add("b", 500, 6);
+        timed.advanceAllTo(1200);
+        assertEquals(0.0, timed.sum("a"));
+        assertEquals(6.0, timed.sum("b"));
+    }
+}
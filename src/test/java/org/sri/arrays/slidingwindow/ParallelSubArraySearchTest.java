@@ -0,0 +1,65 @@
+package org.sri.arrays.slidingwindow;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelSubArraySearchTest {
+
+    @Test
+    public void testStressAgainstSequentialVersions() {
+        Random random = new Random(8);
+        SmallestSubArray smallest = new SmallestSubArray();
+        for (int round = 0; round < 500; round++) {
+            int n = random.nextInt(2000);
+            int maxValue = 1 + random.nextInt(round % 2 == 0 ? 5 : 100);
+            int[] nums = new int[n];
+            for (int i = 0; i < n; i++) {
+                nums[i] = random.nextInt(maxValue); // includes zeros
+            }
+            // tiny chunks so most windows cross chunk boundaries
+            ParallelSubArraySearch search = new ParallelSubArraySearch(ForkJoinPool.commonPool(), 1 + random.nextInt(64));
+            int target = 1 + random.nextInt(maxValue * 20); // the sequential scan needs a positive target
+
+            assertEquals(smallest.smallestSubArray(nums, target), search.smallestSubArray(nums, target),
+                    "smallest, round " + round);
+            assertEquals(LongestSubArray.longestSubArray(nums, target), search.longestSubArray(nums, target),
+                    "longest, round " + round);
+            assertEquals(0, search.longestSubArray(nums, -1 - random.nextInt(maxValue * 20)), "negative, round " + round);
+        }
+    }
+
+    @Test
+    public void testLongSumsDoNotOverflow() {
+        int[] nums = new int[1000];
+        Arrays.fill(nums, Integer.MAX_VALUE);
+        ParallelSubArraySearch search = new ParallelSubArraySearch(ForkJoinPool.commonPool(), 100);
+        assertEquals(3, search.smallestSubArray(nums, 3L * Integer.MAX_VALUE));
+        assertEquals(500, search.longestSubArray(nums, 500L * Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void testEmptyInput() {
+        ParallelSubArraySearch search = new ParallelSubArraySearch();
+        assertEquals(0, search.longestSubArray(new int[0], 3));
+        assertEquals(0, search.smallestSubArray(new int[0], 3));
+    }
+
+    @Test
+    public void testNegativeTarget() {
+        ParallelSubArraySearch search = new ParallelSubArraySearch();
+        assertEquals(0, search.longestSubArray(new int[]{1, 2}, -1));
+        assertEquals(0, search.longestSubArray(new int[]{0, 0, 0}, Long.MIN_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> search.longestSubArray(new int[]{1, -1}, -1));
+    }
+
+    @Test
+    public void testNegativeValuesRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ParallelSubArraySearch().smallestSubArray(new int[]{1, -1}, 1));
+    }
+}
@@ -0,0 +1,98 @@
+package org.sri.arrays.slidingwindow;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlidingWindowAggregatorTest {
+
+    @Test
+    public void testCountWindowMatchesRecomputation() {
+        Random random = new Random(6);
+        for (int windowSize : new int[]{1, 2, 3, 17}) {
+            SlidingWindowAggregator window = SlidingWindowAggregator.countWindow(windowSize);
+            int[] ints = new int[500];
+            for (int i = 0; i < ints.length; i++) {
+                ints[i] = random.nextInt(200) - 100;
+                window.add(ints[i]);
+                int from = Math.max(0, i - windowSize + 1);
+                double sum = 0;
+                double min = Double.MAX_VALUE;
+                double max = -Double.MAX_VALUE;
+                for (int j = from; j <= i; j++) {
+                    sum += ints[j];
+                    min = Math.min(min, ints[j]);
+                    max = Math.max(max, ints[j]);
+                }
+                assertEquals(i - from + 1, window.count());
+                assertEquals(sum, window.sum());
+                assertEquals(min, window.min());
+                assertEquals(max, window.max());
+                assertEquals(sum / (i - from + 1), window.average(), 1e-9);
+            }
+            // the int version with the same window agrees on the best window sum
+            if (windowSize <= ints.length) {
+                double best = -Double.MAX_VALUE;
+                SlidingWindowAggregator replay = SlidingWindowAggregator.countWindow(windowSize);
+                for (int i = 0; i < ints.length; i++) {
+                    replay.add(ints[i]);
+                    if (i >= windowSize - 1) {
+                        best = Math.max(best, replay.sum());
+                    }
+                }
+                assertEquals(new BaseSlidingWindow().findMaxSubArray(ints, windowSize), best);
+            }
+        }
+    }
+
+    @Test
+    public void testSumSurvivesEvictingLargeValues() {
+        SlidingWindowAggregator window = SlidingWindowAggregator.countWindow(2);
+        window.add(1e20);
+        window.add(1);
+        window.add(1);
+        assertEquals(2.0, window.sum());
+        assertEquals(1.0, window.average());
+
+        // a long stream mixing magnitudes stays exact once the large values are gone
+        Random random = new Random(60);
+        SlidingWindowAggregator mixed = SlidingWindowAggregator.countWindow(8);
+        for (int i = 0; i < 10_000; i++) {
+            mixed.add(random.nextBoolean() ? 1e18 * random.nextDouble() : random.nextInt(10));
+        }
+        for (int i = 0; i < 8; i++) {
+            mixed.add(i);
+        }
+        assertEquals(28.0, mixed.sum());
+    }
+
+    @Test
+    public void testTimeWindow() {
+        SlidingWindowAggregator window = SlidingWindowAggregator.timeWindow(1000, 4);
+        assertTrue(Double.isNaN(window.average()));
+        window.add(0, 5);
+        window.add(400, 9);
+        window.add(1200, 1);
+        assertEquals(2, window.count());
+        assertEquals(10.0, window.sum());
+        assertEquals(9.0, window.max());
+
+        window.advanceTo(2500);
+        assertEquals(0, window.count());
+        assertEquals(0.0, window.sum());
+        assertTrue(Double.isNaN(window.min()));
+
+        // maxValues caps the window even inside the duration
+        for (int t = 3000; t < 3006; t++) {
+            window.add(t, t - 3000);
+        }
+        assertEquals(4, window.count());
+        assertEquals(2.0 + 3 + 4 + 5, window.sum());
+
+        assertThrows(IllegalArgumentException.class, () -> window.add(10, 1));
+        assertThrows(IllegalStateException.class, () -> window.add(1.0));
+        assertThrows(IllegalStateException.class, () -> SlidingWindowAggregator.countWindow(2).add(1, 1.0));
+    }
+}
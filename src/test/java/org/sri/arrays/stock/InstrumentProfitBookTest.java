@@ -0,0 +1,70 @@
+package org.sri.arrays.stock;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstrumentProfitBookTest {
+
+    @Test
+    public void testConcurrentFeedsMatchOneTrackerPerInstrument() throws InterruptedException {
+        InstrumentProfitBook book = new InstrumentProfitBook(3, 2, 0.5); // rounded up to 4 stripes
+        int instruments = 8;
+        double[][] prices = new double[instruments][5_000];
+        Random random = new Random(120);
+        for (double[] series : prices) {
+            for (int i = 0; i < series.length; i++) {
+                series[i] = 50 + random.nextInt(100);
+            }
+        }
+        // one thread per instrument keeps each instrument's tick order, the stripes are still shared
+        List<Thread> threads = new ArrayList<>();
+        for (int s = 0; s < instruments; s++) {
+            String instrument = "SYM" + s;
+            double[] series = prices[s];
+            threads.add(new Thread(() -> {
+                for (double price : series) {
+                    book.onTick(instrument, price);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(instruments, book.instrumentCount());
+        for (int s = 0; s < instruments; s++) {
+            ProfitTracker expected = new ProfitTracker(2, 0.5);
+            expected.onTicks(prices[s], 0, prices[s].length);
+            InstrumentProfitBook.Snapshot snapshot = book.snapshot("SYM" + s);
+            assertEquals(prices[s].length, snapshot.getTicks());
+            assertEquals(expected.bestSingleTradeProfit(), snapshot.getBestSingleTrade());
+            assertEquals(expected.bestKTransactionProfit(), snapshot.getBestKTransactions());
+            assertEquals(expected.bestProfitWithCooldown(), snapshot.getBestWithCooldown());
+            assertEquals(expected.bestProfitWithFee(), snapshot.getBestWithFee());
+        }
+    }
+
+    @Test
+    public void testUnknownAndRemovedInstruments() {
+        InstrumentProfitBook book = new InstrumentProfitBook(1, 1, 0);
+        assertNull(book.snapshot("none"));
+        assertFalse(book.remove("none"));
+
+        book.onTick("A", 10);
+        book.onTick("A", 10); // duplicate price, no profit yet
+        book.onTick("A", 15);
+        assertEquals(5, book.snapshot("A").getBestSingleTrade());
+        assertTrue(book.remove("A"));
+        assertNull(book.snapshot("A"));
+        assertEquals(0, book.instrumentCount());
+        assertThrows(IllegalArgumentException.class, () -> new InstrumentProfitBook(0, 1, 0));
+    }
+}
@@ -0,0 +1,77 @@
+package org.sri.arrays.stock;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProfitTrackerTest {
+
+    // Tries every buy/sell/skip choice: at most maxBuys trades, an optional rest tick after each sell, a fee per sell
+    private static double bruteForce(int[] prices, int i, boolean holding, int maxBuys, boolean cooldown,
+                                     boolean justSold, double fee) {
+        if (i == prices.length) {
+            return 0;
+        }
+        double best = bruteForce(prices, i + 1, holding, maxBuys, cooldown, false, fee);
+        if (holding) {
+            best = Math.max(best, prices[i] - fee + bruteForce(prices, i + 1, false, maxBuys, cooldown, true, fee));
+        } else if (maxBuys > 0 && !(cooldown && justSold)) {
+            best = Math.max(best, -prices[i] + bruteForce(prices, i + 1, true, maxBuys - 1, cooldown, false, fee));
+        }
+        return best;
+    }
+
+    @Test
+    public void testMatchesMaxProfitAndBruteForce() {
+        Random random = new Random(12);
+        for (int round = 0; round < 300; round++) {
+            int n = random.nextInt(11);
+            int[] prices = new int[n];
+            for (int i = 0; i < n; i++) {
+                prices[i] = 1 + random.nextInt(round % 2 == 0 ? 3 : 100); // narrow ranges repeat prices
+            }
+            int k = 1 + random.nextInt(6); // often more trades than the prices allow
+            double fee = random.nextInt(4) / 2.0;
+            ProfitTracker tracker = new ProfitTracker(k, fee);
+            for (int price : prices) {
+                tracker.onTick(price);
+            }
+            String where = "round " + round;
+            assertEquals(n, tracker.getTicks());
+            assertEquals(MaxProfit.maxProfit2(prices), tracker.bestSingleTradeProfit(), 1e-9, where);
+            assertEquals(MaxProfit.maxProfit(prices), tracker.bestSingleTradeProfit(), 1e-9, where);
+            assertEquals(bruteForce(prices, 0, false, k, false, false, 0), tracker.bestKTransactionProfit(), 1e-9, where);
+            assertEquals(bruteForce(prices, 0, false, n, true, false, 0), tracker.bestProfitWithCooldown(), 1e-9, where);
+            assertEquals(bruteForce(prices, 0, false, n, false, false, fee), tracker.bestProfitWithFee(), 1e-9, where);
+        }
+    }
+
+    @Test
+    public void testEdgeCases() {
+        ProfitTracker empty = new ProfitTracker(3, 1);
+        assertEquals(0, empty.bestSingleTradeProfit());
+        assertEquals(0, empty.bestKTransactionProfit());
+        assertEquals(0, empty.bestProfitWithCooldown());
+        assertEquals(0, empty.bestProfitWithFee());
+
+        ProfitTracker falling = new ProfitTracker(2, 0);
+        falling.onTicks(new double[]{9, 7, 7, 3, 1}, 0, 5);
+        assertEquals(0, falling.bestSingleTradeProfit());
+        assertEquals(0, falling.bestKTransactionProfit());
+        assertEquals(0, falling.bestProfitWithCooldown());
+
+        ProfitTracker example = new ProfitTracker(2, 1);
+        for (int price : new int[]{100, 180, 260, 310, 40, 695}) {
+            example.onTick(price);
+        }
+        assertEquals(655, example.bestSingleTradeProfit());
+        assertEquals(865, example.bestKTransactionProfit());
+        assertEquals(815, example.bestProfitWithCooldown());
+        assertEquals(863, example.bestProfitWithFee());
+
+        assertThrows(IllegalArgumentException.class, () -> new ProfitTracker(0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ProfitTracker(1, -1));
+    }
+}
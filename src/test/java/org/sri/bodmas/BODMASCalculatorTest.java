@@ -0,0 +1,153 @@
+package org.sri.bodmas;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BODMASCalculatorTest {
+
+    @Test
+    public void testCompiledMatchesTokenPath() {
+        String[] expressions = {"3+(2*5)", "3+2*5-8/4", "(1+2)*(3+4)", "100/7/2", "2*3-4*5"};
+        for (String expression : expressions) {
+            int expected = BODMASCalculator.evaluateExpression(BODMASCalculator.tokenize(expression));
+            assertEquals(expected, BODMASCalculator.evaluate(expression), expression);
+        }
+    }
+
+    @Test
+    public void testVariablesAndUnaryMinus() {
+        CompiledExpression expression = BODMASCalculator.compile("-a * (b - -3) + a");
+        assertArrayEquals(new String[]{"a", "b"}, expression.getVariables());
+        long[] stack = expression.newStack();
+        assertEquals(-2 * (5 + 3) + 2, expression.evaluate(new long[]{2, 5}, stack));
+        assertEquals(-7 * (1 + 3) + 7, expression.evaluate(new long[]{7, 1}, stack));
+    }
+
+    @Test
+    public void testCacheReturnsSameInstance() {
+        ExpressionCache cache = new ExpressionCache(2);
+        CompiledExpression first = cache.compile("1+x");
+        assertSame(first, cache.compile("1+x"));
+        cache.compile("2+x");
+        cache.compile("3+x"); // evicts "1+x"
+        assertEquals(2, cache.size());
+        assertNotSame(first, cache.compile("1+x"));
+    }
+
+    @Test
+    public void testInvalidExpressions() {
+        assertThrows(IllegalArgumentException.class, () -> BODMASCalculator.compile("1+"));
+        assertThrows(IllegalArgumentException.class, () -> BODMASCalculator.compile("(1+2"));
+        assertThrows(IllegalArgumentException.class, () -> BODMASCalculator.compile("1+2)"));
+        assertThrows(IllegalArgumentException.class, () -> BODMASCalculator.compile("2 3"));
+    }
+
+    @Test
+    public void testStreamingEvaluationOverBytes() {
+        ByteBuffer batch = ByteBuffer.wrap("3+(2*5)\n\n-2.5*2 ; 10/4\n1.5+.5".getBytes(StandardCharsets.US_ASCII));
+        ExpressionLexer lexer = new ExpressionLexer(batch);
+        StreamingEvaluator evaluator = new StreamingEvaluator();
+
+        assertTrue(evaluator.evaluateNext(lexer));
+        assertEquals(13, evaluator.longResult());
+        assertTrue(evaluator.evaluateNext(lexer));
+        assertEquals(-5.0, evaluator.doubleResult());
+        assertTrue(evaluator.evaluateNext(lexer));
+        assertFalse(evaluator.isDecimalResult());
+        assertEquals(2, evaluator.longResult());
+        assertTrue(evaluator.evaluateNext(lexer));
+        assertEquals(2.0, evaluator.doubleResult());
+        assertFalse(evaluator.evaluateNext(lexer));
+    }
+
+    @Test
+    public void testEvaluatorReuse() {
+        StreamingEvaluator evaluator = new StreamingEvaluator().reset("2*(3+4)");
+        assertTrue(evaluator.evaluateNext());
+        assertEquals(14, evaluator.longResult());
+        assertFalse(evaluator.evaluateNext());
+
+        evaluator.reset(ByteBuffer.wrap("1.5*2;7/2".getBytes(StandardCharsets.US_ASCII)));
+        assertTrue(evaluator.evaluateNext());
+        assertEquals(3.0, evaluator.doubleResult());
+        assertTrue(evaluator.evaluateNext());
+        assertEquals(3, evaluator.longResult());
+
+        assertThrows(IllegalArgumentException.class, () -> BODMASCalculator.evaluateExpression("(1+"));
+        assertEquals(-4.5, BODMASCalculator.evaluateExpression("-1.5*3")); // a failed call leaves the shared one usable
+        assertThrows(IllegalArgumentException.class, () -> BODMASCalculator.evaluateExpression(" "));
+    }
+
+    @Test
+    public void testNumbersUpToLongMaxValue() {
+        assertEquals(1000000000000000000L, BODMASCalculator.evaluate("1000000000000000000"));
+        assertEquals(Long.MAX_VALUE, BODMASCalculator.evaluate("9223372036854775807"));
+        assertEquals(Long.MAX_VALUE - 1, BODMASCalculator.evaluate("09223372036854775807 - 1")); // leading zeros are free
+        assertEquals(-Long.MAX_VALUE, BODMASCalculator.evaluate("-9223372036854775807"));
+        assertThrows(IllegalArgumentException.class, () -> BODMASCalculator.compile("9223372036854775808"));
+        assertThrows(IllegalArgumentException.class, () -> BODMASCalculator.evaluateExpression("99999999999999999999"));
+
+        ExpressionLexer lexer = new ExpressionLexer("3.14159265358979323846264 0.000000000000000000000000125");
+        assertEquals(ExpressionLexer.NUMBER, lexer.next());
+        assertEquals(Math.PI, lexer.doubleValue(), 1e-15);
+        assertEquals(ExpressionLexer.NUMBER, lexer.next());
+        assertEquals(1.25e-25, lexer.doubleValue(), 1e-38);
+    }
+
+    @Test
+    public void testDecimalCompiledExpression() {
+        CompiledExpression expression = BODMASCalculator.compile("x * 1.5 - 0.25");
+        assertFalse(expression.isIntegral());
+        assertEquals(2.75, expression.evaluateDouble(2));
+        assertThrows(IllegalStateException.class, () -> expression.evaluate(2));
+    }
+
+    @Test
+    public void testBatchMatchesPerRowEvaluation() {
+        CompiledExpression expression = BODMASCalculator.compile("(a + b) * -c - a / (b + 1)");
+        int rows = 200_003; // not a multiple of the chunk size
+        long[][] columns = new long[3][rows];
+        double[][] doubleColumns = new double[3][rows];
+        for (int i = 0; i < rows; i++) {
+            for (int c = 0; c < 3; c++) {
+                columns[c][i] = (i * 31L + c * 7L) % 1000;
+                doubleColumns[c][i] = columns[c][i];
+            }
+        }
+        long[] out = new long[rows];
+        long[] parallelOut = new long[rows];
+        double[] doubleOut = new double[rows];
+        BatchEvaluator batch = new BatchEvaluator(expression);
+        batch.evaluate(columns, out);
+        batch.evaluateParallel(columns, parallelOut, ForkJoinPool.commonPool());
+        batch.evaluateParallel(doubleColumns, doubleOut, ForkJoinPool.commonPool());
+
+        long[] stack = expression.newStack();
+        for (int i = 0; i < rows; i++) {
+            long expected = expression.evaluate(new long[]{columns[0][i], columns[1][i], columns[2][i]}, stack);
+            assertEquals(expected, out[i]);
+            assertEquals(expected, parallelOut[i]);
+            assertEquals(expression.evaluateDouble(doubleColumns[0][i], doubleColumns[1][i], doubleColumns[2][i]), doubleOut[i]);
+        }
+    }
+
+    @Test
+    public void testParallelWithChunkLargerThanHalfTheRange() {
+        CompiledExpression expression = BODMASCalculator.compile("x * 2 + 1");
+        int rows = 70_000;
+        long[][] columns = new long[1][rows];
+        for (int i = 0; i < rows; i++) {
+            columns[0][i] = i;
+        }
+        long[] out = new long[rows];
+        new BatchEvaluator(expression, 50_000).evaluateParallel(columns, out, ForkJoinPool.commonPool());
+        for (int i = 0; i < rows; i++) {
+            assertEquals(i * 2L + 1, out[i]);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.sri.collections;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntIntHashMapTest {
+
+    @Test
+    public void testMatchesHashMapUnderRandomOperations() {
+        Random random = new Random(4);
+        IntIntHashMap map = new IntIntHashMap(4);
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int op = 0; op < 200_000; op++) {
+            int key = random.nextInt(2000) - 1000; // includes the zero key and lots of collisions
+            switch (random.nextInt(4)) {
+                case 0:
+                    map.put(key, op);
+                    expected.put(key, op);
+                    break;
+                case 1:
+                    assertEquals(expected.remove(key) != null, map.remove(key));
+                    break;
+                case 2:
+                    assertEquals(expected.merge(key, 3, Integer::sum).intValue(), map.addTo(key, 3));
+                    break;
+                default:
+                    assertEquals(expected.getOrDefault(key, -1).intValue(), map.getOrDefault(key, -1));
+                    assertEquals(expected.containsKey(key), map.containsKey(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        Map<Integer, Integer> seen = new HashMap<>();
+        map.forEach(seen::put);
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    public void testClearKeepsMapUsable() {
+        IntIntHashMap map = new IntIntHashMap();
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, i * 2);
+        }
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(0));
+        assertEquals(-1, map.getOrDefault(10, -1));
+        map.put(10, 1);
+        assertEquals(1, map.getOrDefault(10, -1));
+        assertEquals(1, map.putIfAbsent(10, 5));
+        assertEquals(5, map.putIfAbsent(11, 5));
+    }
+}
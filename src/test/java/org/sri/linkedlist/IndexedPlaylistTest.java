@@ -0,0 +1,97 @@
+package org.sri.linkedlist;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedPlaylistTest {
+
+    private static List<String> titles(IndexedPlaylist playlist) {
+        List<String> titles = new ArrayList<>();
+        playlist.snapshot().forEach(titles::add);
+        return titles;
+    }
+
+    @Test
+    public void testDuplicatesInsertAndMove() {
+        IndexedPlaylist playlist = new IndexedPlaylist();
+        playlist.addSong("A", "first");
+        playlist.addSong("B", "x");
+        playlist.addSong("A", "second");
+        playlist.insertSong(0, "C", "x");
+        playlist.insertSong(4, "D", "x");
+        assertEquals(List.of("C", "A", "B", "A", "D"), titles(playlist));
+        assertEquals(2, playlist.countSongs("A"));
+
+        assertTrue(playlist.moveSong("D", 1));
+        assertTrue(playlist.removeSong("A"));
+        IndexedPlaylist.Snapshot snapshot = playlist.snapshot();
+        assertEquals(List.of("C", "D", "B", "A"), titles(playlist));
+        assertEquals("second", snapshot.getArtist(3));
+        assertFalse(playlist.removeSong("missing"));
+        assertThrows(IndexOutOfBoundsException.class, () -> playlist.insertSong(9, "E", "x"));
+    }
+
+    @Test
+    public void testConcurrentReadersSeeConsistentSnapshots() throws InterruptedException {
+        IndexedPlaylist playlist = new IndexedPlaylist(true);
+        for (int i = 0; i < 1000; i++) {
+            playlist.addSong("Song " + i, "Artist");
+        }
+        assertEquals(1000, playlist.snapshot().size());
+        AtomicBoolean failed = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 5000; i++) {
+                playlist.removeSong("Song " + (i % 1000));
+                playlist.insertSong(i % 500, "Song " + (i % 1000), "Artist");
+            }
+        });
+        Thread reader = new Thread(() -> {
+            for (int i = 0; i < 2000; i++) {
+                IndexedPlaylist.Snapshot snapshot = playlist.snapshot();
+                if (snapshot.size() < 999 || snapshot.size() > 1000 || snapshot.countSongs("Song " + (i % 1000)) > 1) {
+                    failed.set(true);
+                }
+                int size = playlist.size(); // a volatile read, never blocks
+                if (size < 999 || size > 1000) {
+                    failed.set(true);
+                }
+            }
+        });
+        writer.start();
+        reader.start();
+        writer.join();
+        reader.join();
+        assertFalse(failed.get());
+        assertEquals(1000, playlist.snapshot().size());
+        assertEquals(1, playlist.countSongs("Song 7"));
+    }
+
+    @Test
+    public void testSnapshotIsCopiedOnlyAfterEdits() {
+        IndexedPlaylist playlist = new IndexedPlaylist(true);
+        for (int i = 0; i < 50_000; i++) {
+            playlist.addSong("Song " + (i % 10_000), "Artist"); // each edit is O(1), nothing is copied yet
+        }
+        assertEquals(50_000, playlist.size());
+        assertEquals(5, playlist.countSongs("Song 42"));
+
+        IndexedPlaylist.Snapshot first = playlist.snapshot();
+        assertEquals(50_000, first.size());
+        assertSame(first, playlist.snapshot());
+
+        assertTrue(playlist.removeSong("Song 42"));
+        assertEquals(4, playlist.countSongs("Song 42"));
+        assertEquals(49_999, playlist.size());
+        assertEquals(50_000, first.size()); // an old snapshot never changes
+        IndexedPlaylist.Snapshot second = playlist.snapshot();
+        assertNotSame(first, second);
+        assertEquals(49_999, second.size());
+        assertEquals(4, second.countSongs("Song 42"));
+        assertEquals("Song 43", second.getTitle(42));
+    }
+}
@@ -0,0 +1,108 @@
+package org.sri.linkedlist;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LinkedListTest {
+
+    @Test
+    public void testAddAllAndReverse() {
+        LinkedList list = new LinkedList();
+        list.add(1);
+        list.addAll(new int[]{2, 3, 4});
+        list.add(5);
+        assertEquals(5, list.size());
+        assertArrayEquals(new int[]{1, 2, 3, 4, 5}, list.toArray());
+
+        list.reverse();
+        list.add(0); // tail must follow the reverse
+        assertArrayEquals(new int[]{5, 4, 3, 2, 1, 0}, list.toArray());
+    }
+
+    @Test
+    public void testIndexedMatchesScanOnAppendOnlyLists() {
+        Random random = new Random(6);
+        LinkedList plain = new LinkedList();
+        LinkedList indexed = new LinkedList(true);
+        List<Integer> expected = new ArrayList<>();
+        for (int op = 0; op < 20_000; op++) {
+            int value = random.nextInt(50); // plenty of duplicates
+            if (random.nextInt(3) > 0) {
+                plain.add(value);
+                indexed.add(value);
+                expected.add(value);
+            } else {
+                plain.deleteNode(value);
+                indexed.deleteNode(value);
+                expected.remove(Integer.valueOf(value));
+            }
+        }
+        int[] values = expected.stream().mapToInt(Integer::intValue).toArray();
+        assertArrayEquals(values, plain.toArray());
+        assertArrayEquals(values, indexed.toArray());
+        assertEquals(values.length, indexed.size());
+    }
+
+    @Test
+    public void testIndexedMatchesScanWithUpdatesAndReverses() {
+        Random random = new Random(17);
+        for (int round = 0; round < 50; round++) {
+            LinkedList plain = new LinkedList();
+            LinkedList indexed = new LinkedList(true);
+            for (int op = 0; op < 2_000; op++) {
+                int value = random.nextInt(10); // long duplicate chains
+                switch (random.nextInt(10)) {
+                    case 0:
+                        plain.reverse();
+                        indexed.reverse();
+                        break;
+                    case 1:
+                    case 2:
+                        int newValue = random.nextInt(10);
+                        plain.updateDate(value, newValue);
+                        indexed.updateDate(value, newValue);
+                        break;
+                    case 3:
+                    case 4:
+                        plain.deleteNode(value);
+                        indexed.deleteNode(value);
+                        break;
+                    case 5:
+                        int[] values = {value, random.nextInt(10), value};
+                        plain.addAll(values);
+                        indexed.addAll(values);
+                        break;
+                    default:
+                        plain.add(value);
+                        indexed.add(value);
+                }
+                assertEquals(plain.contains(value), indexed.contains(value));
+            }
+            assertArrayEquals(plain.toArray(), indexed.toArray(), "round " + round);
+            assertEquals(plain.size(), indexed.size());
+        }
+    }
+
+    @Test
+    public void testIndexedUpdateAndDeleteWithDuplicates() {
+        LinkedList list = new LinkedList(true);
+        list.addAll(new int[]{7, 3, 7, 9});
+        list.updateDate(7, 8);
+        assertArrayEquals(new int[]{8, 3, 7, 9}, list.toArray());
+        assertTrue(list.contains(7));
+
+        list.deleteNode(7);
+        assertFalse(list.contains(7));
+        list.deleteNode(9);
+        list.add(9);
+        list.reverse();
+        list.deleteNode(8);
+        assertArrayEquals(new int[]{9, 3}, list.toArray());
+        assertEquals(2, list.size());
+    }
+}
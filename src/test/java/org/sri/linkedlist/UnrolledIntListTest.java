@@ -0,0 +1,69 @@
+package org.sri.linkedlist;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UnrolledIntListTest {
+
+    @Test
+    public void testMatchesLinkedListUnderRandomOperations() {
+        Random random = new Random(18);
+        UnrolledIntList unrolled = new UnrolledIntList(8);
+        LinkedList expected = new LinkedList();
+        for (int op = 0; op < 20_000; op++) {
+            int value = random.nextInt(100);
+            switch (random.nextInt(6)) {
+                case 0:
+                case 1:
+                    unrolled.add(value);
+                    expected.add(value);
+                    break;
+                case 2:
+                    unrolled.deleteNode(value);
+                    expected.deleteNode(value);
+                    break;
+                case 3:
+                    unrolled.updateDate(value, value + 1);
+                    expected.updateDate(value, value + 1);
+                    break;
+                case 4:
+                    int[] batch = {value, value + 7, value + 13};
+                    unrolled.addAll(batch);
+                    expected.addAll(batch);
+                    break;
+                default:
+                    if (random.nextInt(10) == 0) {
+                        unrolled.reverse();
+                        expected.reverse();
+                    }
+            }
+        }
+        assertArrayEquals(expected.toArray(), unrolled.toArray());
+        assertEquals(expected.size(), unrolled.size());
+    }
+
+    @Test
+    public void testReverseIsLogical() {
+        UnrolledIntList list = new UnrolledIntList(4);
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            list.add(i);
+            expected.add(i);
+        }
+        list.reverse();
+        list.add(-1);
+        Collections.reverse(expected);
+        expected.add(-1);
+
+        List<Integer> actual = new ArrayList<>();
+        list.forEach(actual::add);
+        assertEquals(expected, actual);
+        assertTrue(list.estimatedBytesPerElement() < 32);
+    }
+}
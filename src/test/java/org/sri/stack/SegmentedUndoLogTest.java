@@ -0,0 +1,127 @@
+package org.sri.stack;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentedUndoLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testUndoAcrossSegmentsAndReopen() throws IOException {
+        try (SegmentedUndoLog log = SegmentedUndoLog.open(directory, 4096, 0)) {
+            for (int i = 0; i < 1000; i++) {
+                log.append("Action " + i);
+            }
+            assertTrue(log.segmentCount() > 1);
+            assertEquals("Action 999", log.removeLast());
+        }
+        try (SegmentedUndoLog log = SegmentedUndoLog.open(directory, 4096, 0)) {
+            assertEquals(999, log.size());
+            for (int i = 998; i >= 0; i--) {
+                assertEquals("Action " + i, log.removeLast());
+            }
+            assertNull(log.removeLast());
+            assertEquals(1, log.segmentCount());
+        }
+    }
+
+    @Test
+    public void testAppendAfterUndoOverwritesUndoneRecords() throws IOException {
+        try (SegmentedUndoLog log = SegmentedUndoLog.open(directory, 4096, 0)) {
+            log.append("Type 'Hello'");
+            log.append("Bold");
+            log.removeLast();
+            log.append("Italic");
+        }
+        try (SegmentedUndoLog log = SegmentedUndoLog.open(directory, 4096, 0)) {
+            assertEquals(2, log.size());
+            assertEquals("Italic", log.removeLast());
+            assertEquals("Type 'Hello'", log.removeLast());
+        }
+    }
+
+    @Test
+    public void testCompactionKeepsRetainedEntries() throws IOException {
+        try (SegmentedUndoLog log = SegmentedUndoLog.open(directory, 4096, 100)) {
+            for (int i = 0; i < 2000; i++) {
+                log.append("Action " + i);
+            }
+            int before = log.segmentCount();
+            log.compact();
+            assertTrue(log.segmentCount() < before);
+            assertTrue(log.size() >= 100);
+            for (int i = 1999; i >= 1900; i--) {
+                assertEquals("Action " + i, log.removeLast());
+            }
+        }
+    }
+
+    @Test
+    public void testBackgroundCompactionSharesOneThread() throws Exception {
+        List<SegmentedUndoLog> logs = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            SegmentedUndoLog log = SegmentedUndoLog.open(Files.createDirectory(directory.resolve("doc" + i)), 4096, 50);
+            log.startBackgroundCompaction(10);
+            logs.add(log);
+        }
+        SegmentedUndoLog busy = logs.get(0);
+        for (int i = 0; i < 2000; i++) {
+            busy.append("Action " + i);
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (busy.segmentCount() > 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(busy.segmentCount() <= 2, "background compaction did not run");
+        long compactors = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("undo-log-compactor")).count();
+        assertEquals(1, compactors);
+        for (SegmentedUndoLog log : logs) {
+            log.close();
+        }
+    }
+
+    @Test
+    public void testUndoPastEmptySegmentLeftByCrash() throws IOException {
+        int segments;
+        try (SegmentedUndoLog log = SegmentedUndoLog.open(directory, 4096, 0)) {
+            for (int i = 0; i < 300; i++) {
+                log.append("Action " + i);
+            }
+            segments = log.segmentCount();
+        }
+        // a crash right after creating the next segment leaves it with a header and no records
+        ByteBuffer header = ByteBuffer.allocate(4096);
+        header.putInt(0, 0x554E444F);
+        header.putInt(8, 16);
+        Files.write(directory.resolve(String.format("segment-%010d.log", segments)), header.array());
+
+        try (SegmentedUndoLog log = SegmentedUndoLog.open(directory, 4096, 0)) {
+            assertEquals(segments + 1, log.segmentCount());
+            assertEquals(300, log.size());
+            assertEquals("Action 299", log.removeLast());
+            assertEquals(segments, log.segmentCount());
+            log.append("After crash");
+        }
+        try (SegmentedUndoLog log = SegmentedUndoLog.open(directory, 4096, 0)) {
+            assertEquals(300, log.size());
+            assertEquals("After crash", log.removeLast());
+            for (int i = 298; i >= 0; i--) {
+                assertEquals("Action " + i, log.removeLast());
+            }
+            assertNull(log.removeLast());
+            assertEquals(0, log.size());
+        }
+    }
+}
@@ -42,6 +42,65 @@ class TextEditorHistoryTest {
             history.addAction("Action " + i);
         }
         assertEquals(10, history.getHistorySize());
+        assertEquals("Action 11", history.undo());
+        for (int i = 0; i < 8; i++) {
+            history.undo();
+        }
+        // "Action 1" was evicted, so the oldest remaining action is "Action 2"
         assertEquals("Action 2", history.undo());
+        assertNull(history.undo());
+    }
+
+    @Test
+    public void testRedo() {
+        history.addAction("Type 'Hello'");
+        history.addAction("Bold");
+        assertEquals("Bold", history.undo());
+        assertEquals("Bold", history.redo());
+        assertNull(history.redo());
+
+        history.undo();
+        history.addAction("Italic"); // drops the redo entry
+        assertFalse(history.canRedo());
+        assertEquals("Italic", history.undo());
+        assertEquals("Type 'Hello'", history.undo());
+    }
+
+    @Test
+    public void testCustomCapacityWrapsAround() {
+        TextEditorHistory large = new TextEditorHistory(1000);
+        for (int i = 1; i <= 2500; i++) {
+            large.addAction("Action " + i);
+        }
+        assertEquals(1000, large.getHistorySize());
+        assertEquals("Action 2500", large.undo());
+        for (int i = 0; i < 998; i++) {
+            large.undo();
+        }
+        assertEquals("Action 1501", large.undo());
+        assertNull(large.undo());
+    }
+
+    @Test
+    public void testTypingIsCoalesced() {
+        history.addTyping("Hel");
+        history.addTyping("lo");
+        history.addAction("Bold");
+        history.addTyping("!");
+        assertEquals(3, history.getHistorySize());
+        assertEquals("Type '!'", history.undo());
+        assertEquals("Bold", history.undo());
+        assertEquals("Type 'Hello'", history.undo());
+    }
+
+    @Test
+    public void testByteBoundedHistoryEvictsOldest() {
+        TextEditorHistory bounded = TextEditorHistory.boundedByBytes(1000);
+        for (int i = 0; i < 100; i++) {
+            bounded.addAction("Action " + i);
+        }
+        assertTrue(bounded.getEstimatedBytes() <= 1000);
+        assertTrue(bounded.getHistorySize() < 100);
+        assertEquals("Action 99", bounded.undo());
     }
 }
@@ -0,0 +1,170 @@
+package org.sri.threads.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkFileReaderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testReadsEveryFileInChunksAndReportsErrors() throws IOException {
+        Random random = new Random(22);
+        List<Path> files = new ArrayList<>();
+        Map<Path, byte[]> expected = new ConcurrentHashMap<>();
+        for (int i = 0; i < 12; i++) {
+            byte[] content = new byte[random.nextInt(50_000)]; // some files are empty
+            random.nextBytes(content);
+            Path file = directory.resolve("file" + i + ".bin");
+            Files.write(file, content);
+            files.add(file);
+            expected.put(file, content);
+        }
+        Path missing = directory.resolve("missing.bin");
+        files.add(missing);
+
+        Map<Path, ByteArrayOutputStream> received = new ConcurrentHashMap<>();
+        List<Path> completed = new ArrayList<>();
+        List<Path> failed = new ArrayList<>();
+        BulkFileReader.Summary summary;
+        try (BulkFileReader reader = new BulkFileReader(3, 4096)) {
+            summary = reader.readAll(files, new BulkFileReader.ChunkConsumer() {
+                @Override
+                public void onChunk(Path file, long position, ByteBuffer chunk) {
+                    ByteArrayOutputStream out = received.computeIfAbsent(file, f -> new ByteArrayOutputStream());
+                    assertEquals(out.size(), position);
+                    while (chunk.hasRemaining()) {
+                        out.write(chunk.get());
+                    }
+                }
+
+                @Override
+                public synchronized void onComplete(Path file, long bytes) {
+                    completed.add(file);
+                }
+
+                @Override
+                public synchronized void onError(Path file, Throwable error) {
+                    failed.add(file);
+                }
+            }).join();
+        }
+
+        assertEquals(13, summary.getFiles());
+        assertEquals(1, summary.getFailedFiles());
+        assertEquals(List.of(missing), failed);
+        assertEquals(12, completed.size());
+        long total = 0;
+        for (Map.Entry<Path, byte[]> entry : expected.entrySet()) {
+            ByteArrayOutputStream out = received.get(entry.getKey());
+            assertArrayEquals(entry.getValue(), out == null ? new byte[0] : out.toByteArray());
+            total += entry.getValue().length;
+        }
+        assertEquals(total, summary.getBytes());
+    }
+
+    @Test
+    public void testConcurrentReadsShareTheReader() throws IOException {
+        List<Path> first = new ArrayList<>();
+        List<Path> second = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Path file = directory.resolve("shared" + i + ".txt");
+            Files.write(file, new byte[10_000 + i]);
+            (i % 2 == 0 ? first : second).add(file);
+        }
+        AtomicLong chunks = new AtomicLong();
+        BulkFileReader.ChunkConsumer consumer = (file, position, chunk) -> chunks.incrementAndGet();
+        try (BulkFileReader reader = new BulkFileReader(2, 1024)) {
+            // the second read starts while the first one holds every buffer
+            CompletableFuture<BulkFileReader.Summary> a = reader.readAll(first, consumer);
+            CompletableFuture<BulkFileReader.Summary> b = reader.readAll(second, consumer);
+            assertEquals(30_006, a.join().getBytes());
+            assertEquals(30_009, b.join().getBytes());
+            assertEquals(0, a.join().getFailedFiles() + b.join().getFailedFiles());
+        }
+        assertTrue(chunks.get() >= 60);
+    }
+
+    @Test
+    public void testErrorThrownByConsumerFailsOnlyThatFile() throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Path file = directory.resolve("error" + i + ".bin");
+            Files.write(file, new byte[5_000]);
+            files.add(file);
+        }
+        Path broken = files.get(3);
+        List<Path> failed = new ArrayList<>();
+        BulkFileReader.Summary summary;
+        try (BulkFileReader reader = new BulkFileReader(2, 1024)) {
+            summary = reader.readAll(files, new BulkFileReader.ChunkConsumer() {
+                @Override
+                public void onChunk(Path file, long position, ByteBuffer chunk) {
+                    if (file.equals(broken) && position > 0) {
+                        throw new AssertionError("rejected chunk");
+                    }
+                }
+
+                @Override
+                public synchronized void onError(Path file, Throwable error) {
+                    assertTrue(error instanceof AssertionError);
+                    failed.add(file);
+                }
+            }).orTimeout(10, TimeUnit.SECONDS).join();
+        }
+        assertEquals(1, summary.getFailedFiles());
+        assertEquals(List.of(broken), failed);
+        assertEquals(7 * 5_000, summary.getBytes());
+    }
+
+    @Test
+    public void testReadsAfterCloseFailTheirFiles() throws Exception {
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Path file = directory.resolve("late" + i + ".bin");
+            Files.write(file, new byte[3_000]);
+            files.add(file);
+        }
+        CountDownLatch firstChunk = new CountDownLatch(1);
+        CountDownLatch closed = new CountDownLatch(1);
+        BulkFileReader reader = new BulkFileReader(2, 1024);
+        CompletableFuture<BulkFileReader.Summary> inFlight = reader.readAll(files.subList(0, 2), (file, position, chunk) -> {
+            firstChunk.countDown();
+            try {
+                closed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        firstChunk.await();
+        reader.close();
+        closed.countDown();
+        // the next read of each in-flight file is issued after close
+        BulkFileReader.Summary summary = inFlight.orTimeout(10, TimeUnit.SECONDS).join();
+        assertEquals(2, summary.getFailedFiles());
+
+        AtomicLong chunks = new AtomicLong();
+        summary = reader.readAll(files, (file, position, chunk) -> chunks.incrementAndGet())
+                .orTimeout(10, TimeUnit.SECONDS).join();
+        assertEquals(500, summary.getFailedFiles());
+        assertEquals(0, chunks.get());
+    }
+}
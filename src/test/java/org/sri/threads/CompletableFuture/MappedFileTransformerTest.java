@@ -0,0 +1,57 @@
+package org.sri.threads.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedFileTransformerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testMatchesStringTransformAcrossChunks() throws IOException {
+        Random random = new Random(23);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            int length = random.nextInt(i % 500 == 0 ? 300 : 40); // a few lines longer than a chunk
+            for (int j = 0; j < length; j++) {
+                text.append((char) ('a' + random.nextInt(26)));
+            }
+            text.append('\n');
+        }
+        text.append("last line without newline s");
+        Path input = directory.resolve("in.txt");
+        Path output = directory.resolve("out.txt");
+        Files.write(input, text.toString().getBytes(StandardCharsets.US_ASCII));
+
+        // keep lines that do not start with 'x'
+        MappedFileTransformer.Options options = new MappedFileTransformer.Options()
+                .chunkSize(128)
+                .parallelism(3)
+                .replace('s', 'W')
+                .lineFilter((chunk, start, end) -> end == start || chunk.get(start) != 'x');
+        MappedFileTransformer.Stats stats = new MappedFileTransformer(options).transform(input, output);
+
+        StringBuilder expected = new StringBuilder();
+        long kept = 0;
+        for (String line : text.toString().split("\n", -1)) {
+            if (!line.startsWith("x")) {
+                expected.append(line.replace('s', 'W')).append('\n');
+                kept++;
+            }
+        }
+        expected.setLength(expected.length() - 1); // the input does not end with a newline
+        assertEquals(expected.toString(), new String(Files.readAllBytes(output), StandardCharsets.US_ASCII));
+        assertEquals(5001, stats.getLines());
+        assertEquals(kept, stats.getLinesKept());
+        assertTrue(stats.getChunks() > 1);
+    }
+}
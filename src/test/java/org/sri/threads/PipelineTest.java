@@ -0,0 +1,151 @@
+package org.sri.threads;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PipelineTest {
+
+    @Test
+    public void testItemsFlowThroughAllStages() throws InterruptedException {
+        LongAdder total = new LongAdder();
+        LongAdder count = new LongAdder();
+        Pipeline<String> pipeline = Pipeline.<String>builder()
+                .bufferCapacity(8) // small buffers exercise backpressure
+                .stage("parse", 3, 4, Integer::parseInt)
+                .stage("evens", 2, n -> n % 2 == 0 ? n : null)
+                .stage("square", 2, 16, n -> (long) n * n)
+                .build(square -> {
+                    total.add(square);
+                    count.increment();
+                });
+
+        List<String> items = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            items.add(String.valueOf(i));
+        }
+        pipeline.submitAll(items);
+        pipeline.submit("not a number");
+        pipeline.close();
+
+        long expected = 0;
+        for (int i = 0; i < 1000; i += 2) {
+            expected += (long) i * i;
+        }
+        assertEquals(500, count.sum());
+        assertEquals(expected, total.sum());
+
+        List<Pipeline.StageMetrics> metrics = pipeline.metrics();
+        assertEquals(1001, metrics.get(0).getProcessed());
+        assertEquals(1, metrics.get(0).getErrors());
+        assertEquals(1000, metrics.get(1).getProcessed());
+        assertEquals(500, metrics.get(2).getProcessed());
+    }
+
+    @Test
+    public void testSubmitAllRejectsNulls() throws InterruptedException {
+        LongAdder count = new LongAdder();
+        Pipeline<String> pipeline = Pipeline.<String>builder()
+                .stage("parse", 2, Integer::parseInt)
+                .build(n -> count.increment());
+        assertThrows(IllegalArgumentException.class, () -> pipeline.submitAll(Arrays.asList("1", null, "2")));
+        pipeline.submitAll(Arrays.asList("3", "4"));
+        pipeline.close();
+        assertEquals(2, count.sum());
+    }
+
+    @Test
+    public void testSinkFailuresAreCounted() throws InterruptedException {
+        LongAdder count = new LongAdder();
+        Pipeline<Integer> pipeline = Pipeline.<Integer>builder()
+                .stage("double", 2, 8, n -> n * 2)
+                .stage("identity", 2, 8, n -> n)
+                .build(n -> {
+                    if (n % 10 == 0) {
+                        throw new IllegalStateException("sink rejected " + n);
+                    }
+                    count.increment();
+                });
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            items.add(i);
+        }
+        pipeline.submitAll(items);
+        pipeline.close(); // used to hang once a sink failure killed a worker
+
+        assertEquals(80, count.sum());
+        assertEquals(20, pipeline.metrics().get(1).getErrors());
+    }
+
+    @Test
+    public void testManyConcurrentSubmitters() throws InterruptedException {
+        LongAdder total = new LongAdder();
+        Pipeline<Integer> pipeline = Pipeline.<Integer>builder()
+                .bufferCapacity(16) // nearly every submitter waits for space
+                .stage("double", 2, 8, n -> n * 2)
+                .build(total::add);
+        int submitters = 1_000;
+        int perSubmitter = 50;
+        List<Thread> threads = new ArrayList<>();
+        for (int s = 0; s < submitters; s++) {
+            threads.add(VirtualThreads.start("submitter-", () -> {
+                try {
+                    for (int i = 0; i < perSubmitter; i++) {
+                        pipeline.submit(i);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        pipeline.close();
+        assertEquals((long) submitters * perSubmitter * (perSubmitter - 1), total.sum());
+    }
+
+    @Test
+    public void testSubmitAfterCloseIsRejected() throws InterruptedException {
+        LongAdder total = new LongAdder();
+        LongAdder accepted = new LongAdder();
+        Pipeline<Integer> pipeline = Pipeline.<Integer>builder()
+                .bufferCapacity(4)
+                .stage("identity", 2, n -> n)
+                .build(total::add);
+        // submitters racing close(): every accepted item must still reach the sink
+        CountDownLatch started = new CountDownLatch(20);
+        List<Thread> threads = new ArrayList<>();
+        for (int s = 0; s < 20; s++) {
+            threads.add(VirtualThreads.start("submitter-", () -> {
+                started.countDown();
+                try {
+                    while (true) {
+                        pipeline.submit(1);
+                        accepted.increment();
+                    }
+                } catch (IllegalStateException e) {
+                    // closed
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        started.await();
+        Thread.sleep(20);
+        pipeline.close();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(accepted.sum(), total.sum());
+        assertThrows(IllegalStateException.class, () -> pipeline.submit(1));
+        assertThrows(IllegalStateException.class, () -> pipeline.submitAll(Arrays.asList(1, 2)));
+        pipeline.close(); // a second close is a no-op
+    }
+}
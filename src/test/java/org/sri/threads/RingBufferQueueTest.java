@@ -0,0 +1,170 @@
+package org.sri.threads;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RingBufferQueueTest {
+
+    @Test
+    public void testOfferPollAndBatches() {
+        RingBufferQueue<Integer> queue = new RingBufferQueue<>(8);
+        assertEquals(8, queue.capacity());
+        assertNull(queue.poll());
+
+        Integer[] batch = {1, 2, 3, 4, 5, 6};
+        assertEquals(6, queue.offerAll(batch, 0, batch.length));
+        assertEquals(2, queue.offerAll(batch, 0, batch.length)); // only two slots left
+        assertFalse(queue.offer(7));
+        assertEquals(8, queue.size());
+
+        assertEquals(Integer.valueOf(1), queue.poll());
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(4, queue.drainTo(drained, 4));
+        assertEquals(List.of(2, 3, 4, 5), drained);
+        assertEquals(3, queue.drainTo(drained, 100));
+        assertEquals(List.of(2, 3, 4, 5, 6, 1, 2), drained);
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testCapacityIsExactWhenNotAPowerOfTwo() {
+        RingBufferQueue<Integer> queue = new RingBufferQueue<>(5);
+        assertEquals(5, queue.capacity());
+        Integer[] batch = {1, 2, 3, 4, 5, 6};
+        assertEquals(5, queue.offerAll(batch, 0, batch.length));
+        assertEquals(0, queue.offerAll(batch, 5, batch.length));
+        assertFalse(queue.offer(6));
+        assertFalse(queue.canOffer());
+        assertEquals(5, queue.size());
+
+        // keep the queue full across several laps of the 8-slot ring
+        for (int i = 6; i < 40; i++) {
+            assertEquals(Integer.valueOf(i - 5), queue.poll());
+            assertTrue(queue.offer(i));
+            assertFalse(queue.offer(-1));
+        }
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(2, queue.drainTo(drained, 2));
+        assertEquals(2, queue.offerAll(batch, 0, batch.length));
+        assertEquals(5, queue.drainTo(drained, 100));
+        assertEquals(List.of(35, 36, 37, 38, 39, 1, 2), drained);
+    }
+
+    @Test
+    public void testFailedBatchesLeaveQueueUsable() throws InterruptedException {
+        RingBufferQueue<Integer> queue = new RingBufferQueue<>(8);
+        assertThrows(NullPointerException.class, () -> queue.offerAll(new Integer[]{1, null, 2}, 0, 3));
+        assertTrue(queue.isEmpty());
+
+        Integer[] batch = {1, 2, 3, 4};
+        assertEquals(4, queue.offerAll(batch, 0, batch.length));
+        List<Integer> drained = new ArrayList<Integer>() {
+            @Override
+            public boolean add(Integer item) {
+                if (item == 3) {
+                    throw new IllegalStateException("rejected " + item);
+                }
+                return super.add(item);
+            }
+        };
+        assertThrows(IllegalStateException.class, () -> queue.drainTo(drained, 4));
+        assertEquals(List.of(1, 2), drained);
+        assertEquals(2, queue.size());
+        assertEquals(Integer.valueOf(3), queue.take());
+        assertEquals(Integer.valueOf(4), queue.take());
+        assertTrue(queue.offer(5));
+        assertEquals(Integer.valueOf(5), queue.poll());
+    }
+
+    @Test
+    public void testEveryItemDeliveredOnceWithEachWaitStrategy() throws InterruptedException {
+        int producers = 3;
+        // spinning threads only make progress with a core each, otherwise they burn their time slices
+        boolean enoughCores = Runtime.getRuntime().availableProcessors() >= producers * 2;
+        assertDeliveredOnce(new RingBufferQueue<>(16, RingBufferQueue.WaitStrategy.spinning()), producers,
+                enoughCores ? 5_000 : 200);
+        assertDeliveredOnce(new RingBufferQueue<>(16, RingBufferQueue.WaitStrategy.parking()), producers, 5_000);
+        assertDeliveredOnce(new RingBufferQueue<>(16, RingBufferQueue.WaitStrategy.blocking()), producers, 5_000);
+        // 5 items in an 8-slot ring: producers also block on the capacity check, not just on the slot
+        assertDeliveredOnce(new RingBufferQueue<>(5, RingBufferQueue.WaitStrategy.blocking()), producers, 5_000);
+    }
+
+    @Test
+    public void testManyBlockedProducersOneConsumer() throws InterruptedException {
+        RingBufferQueue<Integer> queue = new RingBufferQueue<>(16, RingBufferQueue.WaitStrategy.blocking());
+        int producers = 500;
+        int perProducer = 40;
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            Thread thread = new Thread(() -> {
+                try {
+                    for (int i = 0; i < perProducer; i++) {
+                        queue.put(base + i);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            thread.setDaemon(true);
+            threads.add(thread);
+            thread.start();
+        }
+        long n = (long) producers * perProducer;
+        long sum = 0;
+        long deadline = System.nanoTime() + 20_000_000_000L;
+        for (long i = 0; i < n; i++) {
+            assertTrue(System.nanoTime() < deadline, "took more than 20 s, " + i + " of " + n + " delivered");
+            sum += queue.take();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(n * (n - 1) / 2, sum);
+        assertTrue(queue.isEmpty());
+    }
+
+    private static void assertDeliveredOnce(RingBufferQueue<Integer> queue, int producers, int perProducer)
+            throws InterruptedException {
+        AtomicLong sum = new AtomicLong();
+        AtomicLong count = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            threads.add(new Thread(() -> {
+                try {
+                    for (int i = 0; i < perProducer; i++) {
+                        queue.put(base + i);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            threads.add(new Thread(() -> {
+                try {
+                    for (int i = 0; i < perProducer; i++) {
+                        sum.addAndGet(queue.take());
+                        count.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long n = (long) producers * perProducer;
+        assertEquals(n, count.get());
+        assertEquals(n * (n - 1) / 2, sum.get());
+        assertTrue(queue.isEmpty());
+    }
+}
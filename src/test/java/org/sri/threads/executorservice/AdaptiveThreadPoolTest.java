@@ -0,0 +1,81 @@
+package org.sri.threads.executorservice;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveThreadPoolTest {
+
+    @Test
+    public void testGrowsForBlockingTasksWithinBounds() throws Exception {
+        AdaptiveThreadPool pool = new AdaptiveThreadPool(new AdaptiveThreadPool.Options()
+                .threads(2, 12)
+                .sampleInterval(50));
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            int taskId = i;
+            futures.add(pool.submit(() -> {
+                Thread.sleep(10);
+                return taskId;
+            }));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(i, futures.get(i).get(30, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+
+        AdaptiveThreadPool.Snapshot snapshot = pool.snapshot();
+        assertEquals(600, snapshot.getCompletedTasks());
+        assertFalse(snapshot.getDecisions().isEmpty());
+        int largest = 0;
+        for (AdaptiveThreadPool.Decision decision : snapshot.getDecisions()) {
+            assertTrue(decision.getToThreads() >= 2 && decision.getToThreads() <= 12, decision.toString());
+            assertNotNull(decision.getReason());
+            largest = Math.max(largest, decision.getToThreads());
+        }
+        assertTrue(largest > 2, "sleeping tasks should make the pool grow");
+    }
+
+    @Test
+    public void testShrinksWhenIdle() throws Exception {
+        AdaptiveThreadPool pool = new AdaptiveThreadPool(new AdaptiveThreadPool.Options()
+                .threads(1, 8)
+                .sampleInterval(20));
+        List<Future<Object>> futures = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            futures.add(pool.submit(() -> {
+                Thread.sleep(5);
+                return null;
+            }));
+        }
+        for (Future<Object> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        int grown = 0;
+        for (AdaptiveThreadPool.Decision decision : pool.snapshot().getDecisions()) {
+            grown = Math.max(grown, decision.getToThreads());
+        }
+        assertTrue(grown > 1, "pool never grew under load");
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (pool.getPoolSize() > 1 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(1, pool.getPoolSize());
+        pool.shutdown();
+    }
+
+    @Test
+    public void testRejectsInvalidOptions() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveThreadPool.Options().threads(0, 4));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveThreadPool.Options().threads(4, 2));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveThreadPool.Options().sampleInterval(1));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveThreadPool.Options().cpuCeiling(0));
+    }
+}
@@ -0,0 +1,154 @@
+package org.sri.threads.executorservice;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskSchedulerTest {
+
+    @Test
+    public void testHighPriorityOvertakesQueuedLowPriority() throws Exception {
+        TaskScheduler scheduler = new TaskScheduler(1, 10);
+        CountDownLatch gate = new CountDownLatch(1);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        scheduler.submit(TaskScheduler.Priority.NORMAL, () -> gate.await(5, TimeUnit.SECONDS)); // occupies the only worker
+        Thread.sleep(50);
+        scheduler.submit(TaskScheduler.Priority.LOW, () -> order.add("low 1"));
+        scheduler.submit(TaskScheduler.Priority.LOW, () -> order.add("low 2"));
+        scheduler.submit(TaskScheduler.Priority.HIGH, () -> order.add("high"));
+        gate.countDown();
+
+        assertTrue(scheduler.shutdownGracefully(5, TimeUnit.SECONDS));
+        assertEquals(List.of("high", "low 1", "low 2"), order);
+        assertThrows(RejectedExecutionException.class, () -> scheduler.submit(TaskScheduler.Priority.HIGH, () -> 1));
+    }
+
+    @Test
+    public void testResultsInCompletionOrderAndLaneMetrics() throws Exception {
+        TaskScheduler scheduler = new TaskScheduler(2, 3);
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            int delay = 300 - i * 100;
+            tasks.add(() -> {
+                Thread.sleep(delay);
+                return delay;
+            });
+        }
+        TaskScheduler.CompletionQueue<Integer> results =
+                scheduler.submitAll(TaskScheduler.Kind.BLOCKING, TaskScheduler.Priority.NORMAL, tasks);
+
+        List<Integer> completed = new ArrayList<>();
+        while (results.hasNext()) {
+            completed.add(results.take().get());
+        }
+        assertEquals(List.of(100, 200, 300), completed);
+        assertTrue(scheduler.shutdownGracefully(1, TimeUnit.SECONDS));
+
+        TaskScheduler.LaneMetrics lane = scheduler.metrics().stream()
+                .filter(m -> m.getLane().equals("BLOCKING-NORMAL")).findFirst().get();
+        assertEquals(3, lane.getCompleted());
+        assertEquals(0, lane.getQueueDepth());
+        assertTrue(lane.getAverageRunNanos() >= TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    public void testFullLaneRejectsAndDeadlineCancelsQueuedTasks() throws Exception {
+        TaskScheduler scheduler = new TaskScheduler(1, 1);
+        scheduler.submit(TaskScheduler.Priority.NORMAL, () -> {
+            Thread.sleep(2000);
+            return 0;
+        });
+        Thread.sleep(50);
+        CompletableFuture<Integer> queued = scheduler.submit(TaskScheduler.Priority.LOW, () -> 1);
+        assertThrows(RejectedExecutionException.class, () -> scheduler.submit(TaskScheduler.Priority.LOW, () -> 2));
+        assertFalse(scheduler.shutdownGracefully(100, TimeUnit.MILLISECONDS));
+        assertTrue(queued.isCancelled());
+        TaskScheduler.LaneMetrics low = scheduler.metrics().get(2);
+        assertEquals("CPU-LOW", low.getLane());
+        assertEquals(1, low.getRejected());
+    }
+
+    @Test
+    public void testBlockingThreadsAreBoundedWithoutVirtualThreads() throws Exception {
+        TaskScheduler scheduler = new TaskScheduler(1, 100, 4);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            tasks.add(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(5);
+                running.decrementAndGet();
+                return 1;
+            });
+        }
+        TaskScheduler.CompletionQueue<Integer> results =
+                scheduler.submitAll(TaskScheduler.Kind.BLOCKING, TaskScheduler.Priority.NORMAL, tasks);
+        int sum = 0;
+        while (results.hasNext()) {
+            sum += results.take().get();
+        }
+        assertEquals(40, sum);
+        if (!org.sri.threads.VirtualThreads.isAvailable()) {
+            assertTrue(maxRunning.get() <= 4, "ran " + maxRunning.get() + " blocking tasks at once");
+        }
+        assertTrue(scheduler.shutdownGracefully(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testSubmitsRacingShutdownDoNotStallTheDrain() throws Exception {
+        for (int round = 0; round < 100; round++) {
+            TaskScheduler scheduler = new TaskScheduler(1, 10_000);
+            LongAdder accepted = new LongAdder();
+            LongAdder ran = new LongAdder();
+            List<CompletableFuture<Integer>> futures = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch started = new CountDownLatch(4);
+            List<Thread> submitters = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                TaskScheduler.Kind kind = t % 2 == 0 ? TaskScheduler.Kind.CPU : TaskScheduler.Kind.BLOCKING;
+                Thread submitter = new Thread(() -> {
+                    started.countDown();
+                    try {
+                        while (true) {
+                            futures.add(scheduler.submit(kind, TaskScheduler.Priority.NORMAL, () -> {
+                                ran.increment();
+                                return 1;
+                            }));
+                            accepted.increment();
+                        }
+                    } catch (RejectedExecutionException e) {
+                        // shut down, or the lane is full
+                    }
+                });
+                submitters.add(submitter);
+                submitter.start();
+            }
+            started.await();
+            assertTrue(scheduler.shutdownGracefully(5, TimeUnit.SECONDS), "round " + round);
+            for (Thread submitter : submitters) {
+                submitter.join();
+            }
+            // a submit that lost the race used to leave its task queued and pending above zero,
+            // so this second drain waited out its whole deadline
+            assertTrue(scheduler.shutdownGracefully(1, TimeUnit.SECONDS), "round " + round);
+            for (TaskScheduler.LaneMetrics lane : scheduler.metrics()) {
+                assertEquals(0, lane.getQueueDepth(), lane.getLane());
+            }
+            for (CompletableFuture<Integer> future : futures) {
+                assertTrue(future.isDone() && !future.isCancelled());
+            }
+            assertEquals(accepted.sum(), ran.sum());
+        }
+    }
+}